@@ -0,0 +1,79 @@
+package benchmarks;
+
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.MallIndex;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.query.AffordabilityEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link AffordabilityEngine#shortfalls} over the number of customers and the parallelism of its
+ * pool; {@code parallelism=0} scores on the calling thread. The index is built once per trial, as a caller
+ * reusing the engine would. The results are recorded in the engine's javadoc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AffordabilityBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"0", "1", "2", "4"})
+    public int parallelism;
+
+    private List<Customer> customers;
+    private ForkJoinPool pool;
+    private AffordabilityEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OnlineShoppingMall mall = new MallGenerator(42)
+            .catalogSize(MallState.ITEM_NAMES)
+            .shops(Math.max(10, size / 1000), MallState.ITEMS_PER_SHOP)
+            .customers(size)
+            .generate();
+        customers = mall.getCustomerList();
+        MallIndex index = MallIndex.of(mall.getShopList());
+        if (parallelism == 0) {
+            pool = ForkJoinPool.commonPool();
+            engine = new AffordabilityEngine(index, pool, Integer.MAX_VALUE);
+        } else {
+            pool = new ForkJoinPool(parallelism);
+            engine = new AffordabilityEngine(index, pool, AffordabilityEngine.DEFAULT_THRESHOLD);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long[] shortfalls() {
+        return engine.shortfalls(customers);
+    }
+}
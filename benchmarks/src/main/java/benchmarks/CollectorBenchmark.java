@@ -0,0 +1,88 @@
+package benchmarks;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.util.CollectorImpl;
+import common.test.tool.util.JoiningCollectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link CollectorImpl} collectors from stream-api Exercise9Test against their {@link Collectors} equivalents.
+ * The CSV combiner appends instead of rescanning with {@code contains}, which would not finish at the larger sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectorBenchmark {
+
+    private static final Collector<String, ?, String> TO_CSV = new CollectorImpl<>(
+        ArrayList<String>::new,
+        ArrayList::add,
+        (left, right) -> {
+            left.addAll(right);
+            return left;
+        },
+        list -> String.join(",", list),
+        Collections.emptySet());
+
+    private static final Collector<Customer, ?, Map<String, Set<String>>> TO_ITEM_AS_KEY = new CollectorImpl<>(
+        ConcurrentHashMap<String, Set<String>>::new,
+        (map, customer) -> customer.getWantToBuy().forEach(item ->
+            map.computeIfAbsent(item.getName(), name -> ConcurrentHashMap.newKeySet()).add(customer.getName())),
+        (left, right) -> {
+            right.forEach((name, customers) -> left.merge(name, customers, (a, b) -> {
+                a.addAll(b);
+                return a;
+            }));
+            return left;
+        },
+        map -> map,
+        EnumSet.of(Collector.Characteristics.CONCURRENT, Collector.Characteristics.IDENTITY_FINISH));
+
+    @Benchmark
+    public String csvCollectorImpl(MallState state) {
+        return state.customers().map(Customer::getName).collect(TO_CSV);
+    }
+
+    @Benchmark
+    public String csvJoining(MallState state) {
+        return state.customers().map(Customer::getName).collect(Collectors.joining(","));
+    }
+
+    @Benchmark
+    public String csvJoiningCollectors(MallState state) {
+        return state.customers().map(Customer::getName).collect(JoiningCollectors.joining(","));
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> itemAsKeyCollectorImpl(MallState state) {
+        return state.customers().collect(TO_ITEM_AS_KEY);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> itemAsKeyGroupingBy(MallState state) {
+        return state.customers()
+            .flatMap(customer -> customer.getWantToBuy().stream()
+                .map(item -> new String[] {item.getName(), customer.getName()}))
+            .collect(Collectors.groupingBy(pair -> pair[0], Collectors.mapping(pair -> pair[1], Collectors.toList())));
+    }
+}
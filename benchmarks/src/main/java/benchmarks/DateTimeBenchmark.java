@@ -0,0 +1,82 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link ZonedDateTime} parsing and formatting as in date-and-time-api Exercise4Test, serial and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateTimeBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss_zzz");
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private String[] texts;
+    private ZonedDateTime[] dateTimes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        dateTimes = new ZonedDateTime[size];
+        texts = new String[size];
+        for (int i = 0; i < size; i++) {
+            dateTimes[i] = Instant.ofEpochSecond(random.nextLong(0, 4_000_000_000L)).atZone(tokyo);
+            texts[i] = dateTimes[i].toString();
+        }
+    }
+
+    @Benchmark
+    public List<ZonedDateTime> parse() {
+        return stream(texts).map(ZonedDateTime::parse).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> formatPattern() {
+        return stream(dateTimes).map(FORMATTER::format).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> formatInlinePattern() {
+        return stream(dateTimes)
+            .map(dateTime -> dateTime.format(DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss_zzz")))
+            .collect(Collectors.toList());
+    }
+
+    private <T> Stream<T> stream(T[] values) {
+        Stream<T> stream = Arrays.stream(values);
+        return parallel ? stream.parallel() : stream;
+    }
+}
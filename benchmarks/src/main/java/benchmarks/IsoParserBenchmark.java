@@ -0,0 +1,116 @@
+package benchmarks;
+
+import date.and.time.api.IsoTimestampParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IsoTimestampParser} against the JDK parsers on {@value #SIZE} timestamps in a few regions, as text and as
+ * ASCII bytes. Results are per batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsoParserBenchmark {
+
+    private static final int SIZE = 10_000;
+    private static final ZoneId[] ZONES = {
+        ZoneId.of("Asia/Tokyo"), ZoneId.of("America/New_York"), ZoneId.of("Europe/London"), ZoneId.of("UTC")
+    };
+
+    private final IsoTimestampParser parser = new IsoTimestampParser();
+    private String[] texts;
+    private byte[][] bytes;
+    private String[] dates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        texts = new String[SIZE];
+        bytes = new byte[SIZE][];
+        dates = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            Instant instant = Instant.ofEpochSecond(random.nextLong(0, 4_000_000_000L), random.nextInt(1_000) * 1_000_000);
+            ZonedDateTime dateTime = instant.atZone(ZONES[i % ZONES.length]);
+            texts[i] = dateTime.toString();
+            bytes[i] = texts[i].getBytes(StandardCharsets.US_ASCII);
+            dates[i] = dateTime.toLocalDate().toString();
+        }
+    }
+
+    @Benchmark
+    public long jdkZonedDateTime() {
+        long sum = 0;
+        for (String text : texts) {
+            sum += ZonedDateTime.parse(text).toEpochSecond();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parserEpochSecond() {
+        long sum = 0;
+        for (String text : texts) {
+            sum += parser.parseEpochSecond(text);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parserEpochSecondBytes() {
+        long sum = 0;
+        for (byte[] text : bytes) {
+            sum += parser.parseEpochSecond(text, 0, text.length);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parserZonedDateTime() {
+        long sum = 0;
+        for (String text : texts) {
+            parser.parseEpochSecond(text);
+            sum += parser.toZonedDateTime().getDayOfYear();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long jdkLocalDate() {
+        long sum = 0;
+        for (String date : dates) {
+            sum += LocalDate.parse(date).toEpochDay();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parserEpochDay() {
+        long sum = 0;
+        for (String date : dates) {
+            sum += parser.parseEpochDay(date);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.stream.Stream;
+
+/**
+ * Shared mall of {@code size} customers. Narrow the sizes on the command line, e.g. {@code -p size=1000,100000};
+ * the largest size needs a few GB of heap.
+ */
+@State(Scope.Benchmark)
+public class MallState {
+
+    static final int ITEM_NAMES = 5_000;
+    static final int ITEMS_PER_SHOP = 50;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    public OnlineShoppingMall mall;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mall = new MallGenerator(42)
+            .catalogSize(ITEM_NAMES)
+            .shops(Math.max(10, size / 1000), ITEMS_PER_SHOP)
+            .customers(size)
+            .generate();
+    }
+
+    public Stream<Customer> customers() {
+        Stream<Customer> stream = mall.getCustomerList().stream();
+        return parallel ? stream.parallel() : stream;
+    }
+
+    public Stream<Shop> shops() {
+        Stream<Shop> stream = mall.getShopList().stream();
+        return parallel ? stream.parallel() : stream;
+    }
+
+    public Stream<Item> items() {
+        Stream<Item> stream = mall.itemStream();
+        return parallel ? stream.parallel() : stream;
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Counting wanted items with the {@link Map} default methods from collection-interfaces Exercise2Test.
+ * Parallel runs use a {@link ConcurrentHashMap}, serial runs a {@link HashMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    @Benchmark
+    public Map<String, Integer> merge(MallState state) {
+        Map<String, Integer> counts = newMap(state);
+        wantedNames(state).forEach(name -> counts.merge(name, 1, Integer::sum));
+        return counts;
+    }
+
+    @Benchmark
+    public Map<String, Integer> computeIfPresent(MallState state) {
+        Map<String, Integer> counts = newMap(state);
+        wantedNames(state).forEach(name -> {
+            if (counts.computeIfPresent(name, (key, count) -> count + 1) == null) {
+                counts.merge(name, 1, Integer::sum);
+            }
+        });
+        return counts;
+    }
+
+    @Benchmark
+    public Map<String, Integer> getOrDefault(MallState state) {
+        Map<String, Integer> counts = newMap(state);
+        if (state.parallel) {
+            // get-then-put is not atomic, so the parallel variant falls back to merge
+            wantedNames(state).forEach(name -> counts.merge(name, 1, Integer::sum));
+        } else {
+            wantedNames(state).forEach(name -> counts.put(name, counts.getOrDefault(name, 0) + 1));
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> newMap(MallState state) {
+        return state.parallel ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    private static Stream<String> wantedNames(MallState state) {
+        return state.customers().flatMap(customer -> customer.getWantToBuy().stream()).map(Item::getName);
+    }
+}
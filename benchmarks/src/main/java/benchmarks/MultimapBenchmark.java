@@ -0,0 +1,58 @@
+package benchmarks;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.util.MultimapCollectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Inverting customers to item name and customer names: {@link MultimapCollectors} against
+ * {@link Collectors#groupingByConcurrent} and the per-split maps merged by {@link Collectors#groupingBy}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultimapBenchmark {
+
+    @Benchmark
+    public Map<String, Set<String>> invertingToSet(MallState state) {
+        return state.customers().collect(MultimapCollectors.invertingToSet(MultimapBenchmark::wantedNames,
+            Customer::getName));
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> groupingByConcurrent(MallState state) {
+        return state.customers()
+            .flatMap(customer -> customer.getWantToBuy().stream()
+                .map(item -> new String[] {item.getName(), customer.getName()}))
+            .collect(Collectors.groupingByConcurrent(pair -> pair[0],
+                Collectors.mapping(pair -> pair[1], Collectors.toSet())));
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> threadLocalMerge(MallState state) {
+        return state.customers()
+            .flatMap(customer -> customer.getWantToBuy().stream()
+                .map(item -> new String[] {item.getName(), customer.getName()}))
+            .collect(Collectors.groupingBy(pair -> pair[0], Collectors.mapping(pair -> pair[1], Collectors.toSet())));
+    }
+
+    private static List<String> wantedNames(Customer customer) {
+        return customer.getWantToBuy().stream().map(Item::getName).collect(Collectors.toList());
+    }
+}
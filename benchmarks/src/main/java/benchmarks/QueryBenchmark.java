@@ -0,0 +1,96 @@
+package benchmarks;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.Shop;
+import common.test.tool.query.MallQuery;
+import common.test.tool.query.QueryPlan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static common.test.tool.query.Condition.atMost;
+import static common.test.tool.query.MallColumn.*;
+
+/**
+ * Stream pipelines from the exercises against the same queries compiled by {@link MallQuery}.
+ * Only the sequential variants are meaningful: plans run on the calling thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    private static final QueryPlan<List<String>> AFFORDABLE = MallQuery.customers()
+        .withBasketPrice()
+        .where(atMost(BASKET_PRICE, BUDGET))
+        .select(CUSTOMER_NAME);
+
+    private static final QueryPlan<List<String>> NOT_ON_SALE = MallQuery.wantedItems()
+        .notOnSale()
+        .distinct()
+        .select(ITEM_NAME);
+
+    private static final QueryPlan<Map<Integer, Long>> AGE_DISTRIBUTION = MallQuery.customers().countBy(AGE);
+
+    @Benchmark
+    public List<String> affordableStream(MallState state) {
+        Map<String, Integer> cheapest = state.shops()
+            .flatMap(shop -> shop.getItemList().stream())
+            .collect(Collectors.toMap(Item::getName, Item::getPrice, Math::min));
+        return state.customers()
+            .filter(customer -> customer.getWantToBuy().stream()
+                .mapToInt(item -> cheapest.getOrDefault(item.getName(), 0))
+                .sum() <= customer.getBudget())
+            .map(Customer::getName)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> affordablePlan(MallState state) {
+        return AFFORDABLE.run(state.mall);
+    }
+
+    @Benchmark
+    public Set<String> notOnSaleStream(MallState state) {
+        Set<String> onSale = state.shops()
+            .map(Shop::getItemList)
+            .flatMap(List::stream)
+            .map(Item::getName)
+            .collect(Collectors.toSet());
+        return state.customers()
+            .map(Customer::getWantToBuy)
+            .flatMap(List::stream)
+            .map(Item::getName)
+            .filter(name -> !onSale.contains(name))
+            .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public List<String> notOnSalePlan(MallState state) {
+        return NOT_ON_SALE.run(state.mall);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> ageDistributionStream(MallState state) {
+        return state.customers().collect(Collectors.groupingBy(Customer::getAge, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> ageDistributionPlan(MallState state) {
+        return AGE_DISTRIBUTION.run(state.mall);
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.Shop;
+import common.test.tool.util.IntHistogram;
+import common.test.tool.util.PrimitiveDistinct;
+import common.test.tool.util.TopKCollectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Stream pipelines from the stream-api exercises, serial and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamBenchmark {
+
+    @Benchmark
+    public List<String> filterMapCollect(MallState state) {
+        return state.customers()
+            .filter(customer -> customer.getBudget() > 10000)
+            .map(Customer::getName)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> sortedLimit(MallState state) {
+        return state.customers()
+            .sorted(Comparator.comparing(Customer::getBudget).reversed())
+            .map(Customer::getName)
+            .limit(3)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Customer> topKByBudget(MallState state) {
+        return state.customers().collect(TopKCollectors.topKByInt(3, Customer::getBudget));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupingByCounting(MallState state) {
+        return state.customers().collect(Collectors.groupingBy(Customer::getAge, Collectors.counting()));
+    }
+
+    @Benchmark
+    public IntHistogram ageHistogram(MallState state) {
+        return state.customers().collect(IntHistogram.counting(Customer::getAge));
+    }
+
+    @Benchmark
+    public long flatMapItemPrices(MallState state) {
+        return state.shops()
+            .map(Shop::getItemList)
+            .flatMap(List::stream)
+            .mapToLong(Item::getPrice)
+            .sum();
+    }
+
+    @Benchmark
+    public long flatItemPrices(MallState state) {
+        return state.items().mapToLong(Item::getPrice).sum();
+    }
+
+    @Benchmark
+    public List<Integer> distinctAges(MallState state) {
+        return state.customers().map(Customer::getAge).distinct().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int[] distinctAgesPrimitive(MallState state) {
+        return PrimitiveDistinct.toDistinctArray(state.customers().mapToInt(Customer::getAge));
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.CustomerTable;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.ItemTable;
+import common.test.tool.entity.Shop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Boxed entity lists against the struct-of-arrays {@link CustomerTable} and {@link ItemTable}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Tables {
+
+        CustomerTable customers;
+        ItemTable items;
+
+        @Setup(Level.Trial)
+        public void setUp(MallState state) {
+            customers = CustomerTable.of(state.mall.getCustomerList());
+            items = ItemTable.ofShops(state.mall.getShopList());
+        }
+    }
+
+    @Benchmark
+    public double averageAgeObjects(MallState state) {
+        return state.customers().mapToInt(Customer::getAge).average().getAsDouble();
+    }
+
+    @Benchmark
+    public double averageAgeTable(MallState state, Tables tables) {
+        IntStream ages = tables.customers.ages();
+        return (state.parallel ? ages.parallel() : ages).average().getAsDouble();
+    }
+
+    @Benchmark
+    public Integer richestBudgetObjects(MallState state) {
+        return state.customers().map(Customer::getBudget).max(Comparator.naturalOrder()).get();
+    }
+
+    @Benchmark
+    public int richestBudgetTable(MallState state, Tables tables) {
+        IntStream budgets = tables.customers.budgets();
+        return (state.parallel ? budgets.parallel() : budgets).max().getAsInt();
+    }
+
+    @Benchmark
+    public long allItemsPriceObjects(MallState state) {
+        return state.shops().map(Shop::getItemList).flatMap(List::stream).mapToLong(Item::getPrice).sum();
+    }
+
+    @Benchmark
+    public long allItemsPriceTable(MallState state, Tables tables) {
+        LongStream prices = tables.items.longPrices();
+        return (state.parallel ? prices.parallel() : prices).sum();
+    }
+}
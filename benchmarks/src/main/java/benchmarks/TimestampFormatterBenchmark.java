@@ -0,0 +1,111 @@
+package benchmarks;
+
+import date.and.time.api.ZonedTimestampFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code yyyy_MM_dd_HH_mm_ss_zzz} format of date-and-time-api Exercise4Test on {@value #SIZE} timestamps:
+ * {@link DateTimeFormatter} against {@link ZonedTimestampFormatter} returning strings, appending to a reused
+ * builder and encoding into a reused byte buffer. Results are per batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimestampFormatterBenchmark {
+
+    private static final int SIZE = 10_000;
+    private static final String PATTERN = "yyyy_MM_dd_HH_mm_ss_zzz";
+    private static final ZoneId[] ZONES = {
+        ZoneId.of("Asia/Tokyo"), ZoneId.of("America/Los_Angeles"), ZoneId.of("Europe/London")
+    };
+
+    private final DateTimeFormatter jdk = DateTimeFormatter.ofPattern(PATTERN, Locale.US);
+    private final ZonedTimestampFormatter formatter = ZonedTimestampFormatter.ofPattern(PATTERN, Locale.US);
+    private final StringBuilder builder = new StringBuilder(64);
+    private final ByteBuffer buffer = ByteBuffer.allocate(64);
+
+    private ZonedDateTime[] dateTimes;
+    private long[] epochSeconds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        dateTimes = new ZonedDateTime[SIZE];
+        epochSeconds = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            epochSeconds[i] = random.nextLong(0, 4_000_000_000L);
+            dateTimes[i] = Instant.ofEpochSecond(epochSeconds[i]).atZone(ZONES[i % ZONES.length]);
+        }
+    }
+
+    @Benchmark
+    public long jdkFormat() {
+        long length = 0;
+        for (ZonedDateTime dateTime : dateTimes) {
+            length += jdk.format(dateTime).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long formatString() {
+        long length = 0;
+        for (ZonedDateTime dateTime : dateTimes) {
+            length += formatter.format(dateTime).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long formatToBuilder() {
+        long length = 0;
+        for (ZonedDateTime dateTime : dateTimes) {
+            builder.setLength(0);
+            length += formatter.formatTo(dateTime, builder).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long formatEpochToBuilder() {
+        long length = 0;
+        for (int i = 0; i < SIZE; i++) {
+            builder.setLength(0);
+            length += formatter.formatTo(epochSeconds[i], 0, ZONES[i % ZONES.length], builder).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long formatEpochToBytes() {
+        long length = 0;
+        for (int i = 0; i < SIZE; i++) {
+            buffer.clear();
+            length += formatter.formatTo(epochSeconds[i], 0, ZONES[i % ZONES.length], buffer).position();
+        }
+        return length;
+    }
+}
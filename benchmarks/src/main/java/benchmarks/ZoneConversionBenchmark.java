@@ -0,0 +1,86 @@
+package benchmarks;
+
+import date.and.time.api.ZoneConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A column of epoch millis in Tokyo time converted to Los Angeles local time, as Exercise4Test.sameInstantAs does
+ * for one value: {@link ZonedDateTime#withZoneSameInstant} per value against {@link ZoneConverter} on one thread
+ * and split over the common pool. The column is in time order with occasional jumps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZoneConversionBenchmark {
+
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+    private static final ZoneId LOS_ANGELES = ZoneId.of("America/Los_Angeles");
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private final ZoneConverter serial = new ZoneConverter(LOS_ANGELES, ZoneConverter.DEFAULT_FROM_YEAR,
+        ZoneConverter.DEFAULT_TO_YEAR, ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    private final ZoneConverter parallel = new ZoneConverter(LOS_ANGELES);
+
+    private long[] millis;
+    private long[] locals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        millis = new long[size];
+        locals = new long[size];
+        long current = 1_400_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            current = random.nextInt(1000) == 0
+                ? random.nextLong(0, 4_000_000_000_000L)
+                : current + random.nextInt(60_000);
+            millis[i] = current;
+        }
+    }
+
+    @Benchmark
+    public long[] withZoneSameInstant() {
+        for (int i = 0; i < millis.length; i++) {
+            ZonedDateTime pacific = Instant.ofEpochMilli(millis[i]).atZone(TOKYO).withZoneSameInstant(LOS_ANGELES);
+            locals[i] = pacific.toLocalDateTime().toEpochSecond(ZoneOffset.UTC) * 1000 + pacific.getNano() / 1_000_000;
+        }
+        return locals;
+    }
+
+    @Benchmark
+    public long[] converterSerial() {
+        serial.toLocal(millis, TimeUnit.MILLISECONDS, locals);
+        return locals;
+    }
+
+    @Benchmark
+    public long[] converterParallel() {
+        parallel.toLocal(millis, TimeUnit.MILLISECONDS, locals);
+        return locals;
+    }
+}
@@ -4,10 +4,10 @@ import common.test.tool.entity.OnlineShoppingMall;
 
 import java.io.File;
 
-import javax.xml.bind.JAXB;
-
 public class ClassicOnlineStore {
 
-    protected final OnlineShoppingMall mall =
-        JAXB.unmarshal(new File("../common-test-tool/src/test/resources/data.xml"), OnlineShoppingMall.class);
+    protected static final MallSnapshot SNAPSHOT =
+        MallSnapshot.of(new File("../common-test-tool/src/test/resources/data.xml"));
+
+    protected final OnlineShoppingMall mall = SNAPSHOT.get();
 }
@@ -0,0 +1,275 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Generates an {@link OnlineShoppingMall} of arbitrary size from a fixed seed.
+ * <p>
+ * The catalog holds {@code catalogSize} item names ranked by a Zipf distribution: shops stock and customers want
+ * low ranks far more often, so popular names are sold by many shops. Every name has a base price and each shop
+ * asks that price varied by up to {@code priceSpread} in either direction.
+ * <p>
+ * Every shop and customer is produced from its own random sequence, derived from the seed and its index, so
+ * {@link #shops()}, {@link #customers()}, {@link #generate()} and {@link #writeXml(Path)} all yield the same mall
+ * for the same settings, and the streams may be made parallel.
+ */
+public final class MallGenerator {
+
+    private static final long CUSTOMER_SEED_MIX = 0x9E3779B97F4A7C15L;
+    // consecutive repeated draws after which a shop takes the most popular rank it does not stock yet
+    private static final int MAX_MISSES = 64;
+
+    private final long seed;
+    private int shopCount = 10;
+    private int itemsPerShop = 20;
+    private int catalogSize = 100;
+    private int customerCount = 100;
+    private int minWanted = 1;
+    private int maxWanted = 5;
+    private int minAge = 18;
+    private int maxAge = 80;
+    private int minBudget = 0;
+    private int maxBudget = 20000;
+    private int minPrice = 50;
+    private int maxPrice = 20000;
+    private double priceSpread = 0.2;
+    private double zipfExponent = 1.0;
+
+    public MallGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public MallGenerator shops(int shopCount, int itemsPerShop) {
+        this.shopCount = shopCount;
+        this.itemsPerShop = itemsPerShop;
+        return this;
+    }
+
+    public MallGenerator catalogSize(int catalogSize) {
+        this.catalogSize = catalogSize;
+        return this;
+    }
+
+    public MallGenerator customers(int customerCount) {
+        this.customerCount = customerCount;
+        return this;
+    }
+
+    /** Inclusive range of wish-list sizes. */
+    public MallGenerator wantedItems(int min, int max) {
+        this.minWanted = min;
+        this.maxWanted = max;
+        return this;
+    }
+
+    /** Inclusive range of customer ages. */
+    public MallGenerator ages(int min, int max) {
+        this.minAge = min;
+        this.maxAge = max;
+        return this;
+    }
+
+    /** Inclusive range of customer budgets. */
+    public MallGenerator budgets(int min, int max) {
+        this.minBudget = min;
+        this.maxBudget = max;
+        return this;
+    }
+
+    /** Inclusive range of base prices, and the relative amount by which each shop may deviate from them. */
+    public MallGenerator prices(int min, int max, double spread) {
+        this.minPrice = min;
+        this.maxPrice = max;
+        this.priceSpread = spread;
+        return this;
+    }
+
+    /** Zipf exponent of item popularity; 0 is uniform, larger values concentrate on the top ranks. */
+    public MallGenerator zipfExponent(double zipfExponent) {
+        this.zipfExponent = zipfExponent;
+        return this;
+    }
+
+    public OnlineShoppingMall generate() {
+        OnlineShoppingMall mall = new OnlineShoppingMall();
+        mall.setShopList(shops().collect(Collectors.toList()));
+        mall.setCustomerList(customers().collect(Collectors.toList()));
+        return mall;
+    }
+
+    public Stream<Shop> shops() {
+        if (itemsPerShop > catalogSize) {
+            throw new IllegalStateException("itemsPerShop " + itemsPerShop + " exceeds catalogSize " + catalogSize);
+        }
+        Catalog catalog = new Catalog();
+        return IntStream.range(0, shopCount).mapToObj(index -> {
+            SplittableRandom random = random(seed, index);
+            BitSet stocked = new BitSet(catalogSize);
+            List<Item> items = new ArrayList<>(itemsPerShop);
+            int misses = 0;
+            while (items.size() < itemsPerShop) {
+                int rank = catalog.sample(random);
+                if (stocked.get(rank)) {
+                    // steep exponents keep drawing the same few ranks; sampling on would take unbounded time
+                    if (++misses == MAX_MISSES) {
+                        rank = stocked.nextClearBit(0);
+                    } else {
+                        continue;
+                    }
+                }
+                misses = 0;
+                stocked.set(rank);
+                items.add(item(catalog.name(rank), catalog.price(rank, random)));
+            }
+            Shop shop = new Shop();
+            shop.setName("shop" + index);
+            shop.setItemList(items);
+            return shop;
+        });
+    }
+
+    public Stream<Customer> customers() {
+        Catalog catalog = new Catalog();
+        return IntStream.range(0, customerCount).mapToObj(index -> {
+            SplittableRandom random = random(seed ^ CUSTOMER_SEED_MIX, index);
+            int wanted = between(random, minWanted, maxWanted);
+            List<Item> wantToBuy = new ArrayList<>(wanted);
+            for (int i = 0; i < wanted; i++) {
+                wantToBuy.add(item(catalog.name(catalog.sample(random)), null));
+            }
+            Customer customer = new Customer();
+            customer.setName("customer" + index);
+            customer.setAge(between(random, minAge, maxAge));
+            customer.setBudget(between(random, minBudget, maxBudget));
+            customer.setWantToBuy(wantToBuy);
+            return customer;
+        });
+    }
+
+    /** Streams the mall to {@code file} in the {@code data.xml} layout, one element at a time. */
+    public void writeXml(Path file) {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("mall");
+            writer.writeStartElement("shops");
+            Iterable<Shop> shops = shops()::iterator;
+            for (Shop shop : shops) {
+                writer.writeStartElement("shop");
+                writer.writeAttribute("name", shop.getName());
+                for (Item item : shop.getItemList()) {
+                    writer.writeEmptyElement("item");
+                    writer.writeAttribute("name", item.getName());
+                    writer.writeAttribute("price", String.valueOf(item.getPrice()));
+                }
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeStartElement("customers");
+            Iterable<Customer> customers = customers()::iterator;
+            for (Customer customer : customers) {
+                writer.writeStartElement("customer");
+                writer.writeAttribute("name", customer.getName());
+                writer.writeAttribute("age", String.valueOf(customer.getAge()));
+                writer.writeAttribute("budget", String.valueOf(customer.getBudget()));
+                for (Item item : customer.getWantToBuy()) {
+                    writer.writeEmptyElement("item");
+                    writer.writeAttribute("name", item.getName());
+                }
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Failed to write " + file, e);
+        }
+    }
+
+    /**
+     * Sequence of the element at {@code index}. The seeds are scrambled (SplitMix64) rather than spaced evenly,
+     * which would make the sequences of neighbouring elements shifted copies of each other.
+     */
+    private static SplittableRandom random(long seed, int index) {
+        long z = seed + (index + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    /** Uniform in {@code [min, max]}; the width may exceed {@code int}. */
+    private static int between(SplittableRandom random, int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Empty range " + min + " to " + max);
+        }
+        return (int) (min + random.nextLong((long) max - min + 1));
+    }
+
+    private static Item item(String name, Integer price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+
+    /** Zipf cumulative distribution and base prices of the catalog, derived from the seed alone. */
+    private final class Catalog {
+
+        private final double[] cumulative = new double[catalogSize];
+        private final int[] basePrices = new int[catalogSize];
+
+        private Catalog() {
+            double total = 0;
+            for (int rank = 0; rank < catalogSize; rank++) {
+                total += 1 / Math.pow(rank + 1, zipfExponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < catalogSize; rank++) {
+                cumulative[rank] /= total;
+            }
+            SplittableRandom random = new SplittableRandom(seed + catalogSize);
+            for (int rank = 0; rank < catalogSize; rank++) {
+                basePrices[rank] = between(random, minPrice, maxPrice);
+            }
+        }
+
+        private int price(int rank, SplittableRandom random) {
+            double factor = 1 + priceSpread * (2 * random.nextDouble() - 1);
+            return Math.max(1, (int) Math.round(basePrices[rank] * factor));
+        }
+
+        private int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index < 0 ? -index - 1 : index, catalogSize - 1);
+        }
+
+        private String name(int rank) {
+            return "item" + rank;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.OnlineShoppingMall;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Holds the single {@link JAXBContext} for the mall entities; it is thread-safe and expensive to create.
+ */
+final class MallJaxb {
+
+    static final JAXBContext CONTEXT = create();
+
+    private MallJaxb() {
+    }
+
+    private static JAXBContext create() {
+        try {
+            return JAXBContext.newInstance(OnlineShoppingMall.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import javax.xml.bind.JAXBException;
+
+/**
+ * Process-wide, lazily loaded and read-only {@link OnlineShoppingMall} built from an XML file.
+ * The file is parsed again only when its modification time or size changes. Its CRC32 is computed while it is
+ * parsed, in the same read, and if it matches the last load the mall already handed out is kept.
+ * <p>
+ * The mall is deeply read-only: its lists are unmodifiable and its shops, customers and items throw
+ * {@link UnsupportedOperationException} from every setter, so one test cannot change the data another one sees.
+ */
+public final class MallSnapshot {
+
+    private static final ConcurrentMap<File, MallSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private final File file;
+    private volatile State state;
+
+    private final LongAdder hitCount = new LongAdder();
+    private volatile long loadCount;
+    private volatile long lastLoadNanos;
+    private volatile long totalLoadNanos;
+
+    private MallSnapshot(File file) {
+        this.file = file;
+    }
+
+    public static MallSnapshot of(File file) {
+        return SNAPSHOTS.computeIfAbsent(file.getAbsoluteFile(), MallSnapshot::new);
+    }
+
+    /**
+     * Returns the current snapshot, loading or reloading it first if the file has changed.
+     * The returned mall, its lists and its entities are unmodifiable and may be shared between threads.
+     */
+    public OnlineShoppingMall get() {
+        State current = state;
+        if (current != null && current.matches(file)) {
+            hitCount.increment();
+            return current.mall;
+        }
+        return refresh();
+    }
+
+    private synchronized OnlineShoppingMall refresh() {
+        State current = state;
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (current != null && current.lastModified == lastModified && current.length == length) {
+            hitCount.increment();
+            return current.mall;
+        }
+        long start = System.nanoTime();
+        CRC32 crc = new CRC32();
+        OnlineShoppingMall parsed;
+        try (InputStream in = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())), crc)) {
+            parsed = (OnlineShoppingMall) MallJaxb.CONTEXT.createUnmarshaller().unmarshal(new FilterInputStream(in) {
+                @Override
+                public void close() {
+                    // drained below, so the checksum covers anything after the root element too
+                }
+            });
+            byte[] rest = new byte[8192];
+            while (in.read(rest) != -1) {
+                // CheckedInputStream updates the checksum
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Failed to unmarshal " + file, e);
+        }
+        if (current != null && current.checksum == crc.getValue()) {
+            // touched but not changed: keep the mall every caller already holds
+            state = new State(current.mall, lastModified, length, current.checksum);
+            hitCount.increment();
+            return current.mall;
+        }
+        OnlineShoppingMall mall = freeze(parsed);
+        long elapsed = System.nanoTime() - start;
+        state = new State(mall, lastModified, length, crc.getValue());
+        lastLoadNanos = elapsed;
+        totalLoadNanos += elapsed;
+        loadCount++;
+        return mall;
+    }
+
+    /** Copies the parsed mall into read-only entities, so no caller can change what every other caller sees. */
+    private static OnlineShoppingMall freeze(OnlineShoppingMall mall) {
+        return new FrozenMall(mall);
+    }
+
+    private static <T> List<T> frozen(List<T> list, Function<T, T> copy) {
+        if (list == null) {
+            return null;
+        }
+        List<T> copies = new ArrayList<>(list.size());
+        for (T element : list) {
+            copies.add(element == null ? null : copy.apply(element));
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("MallSnapshot entities are read-only; copy them to modify");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** Number of times a new mall has been loaded; a touched file with the same CRC32 keeps the old one. */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /** Number of {@link #get()} calls served without parsing. */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    public long getTotalLoadNanos() {
+        return totalLoadNanos;
+    }
+
+    public long getChecksum() {
+        State current = state;
+        return current == null ? 0L : current.checksum;
+    }
+
+    @Override
+    public String toString() {
+        return "MallSnapshot{file=" + file + ", loads=" + loadCount + ", hits=" + getHitCount()
+            + ", lastLoadMillis=" + lastLoadNanos / 1_000_000 + ", totalLoadMillis=" + totalLoadNanos / 1_000_000 + "}";
+    }
+
+    private static final class FrozenMall extends OnlineShoppingMall {
+
+        private FrozenMall(OnlineShoppingMall mall) {
+            super.setShopList(frozen(mall.getShopList(), FrozenShop::new));
+            super.setCustomerList(frozen(mall.getCustomerList(), FrozenCustomer::new));
+        }
+
+        @Override
+        public void setShopList(List<Shop> shopList) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCustomerList(List<Customer> customerList) {
+            throw readOnly();
+        }
+    }
+
+    private static final class FrozenShop extends Shop {
+
+        private FrozenShop(Shop shop) {
+            super.setName(shop.getName());
+            super.setNameId(shop.getNameId());
+            super.setItemList(frozen(shop.getItemList(), FrozenItem::new));
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setNameId(int nameId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setItemList(List<Item> itemList) {
+            throw readOnly();
+        }
+    }
+
+    private static final class FrozenCustomer extends Customer {
+
+        private FrozenCustomer(Customer customer) {
+            super.setName(customer.getName());
+            super.setNameId(customer.getNameId());
+            super.setAge(customer.getAge());
+            super.setBudget(customer.getBudget());
+            super.setWantToBuy(frozen(customer.getWantToBuy(), FrozenItem::new));
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setNameId(int nameId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAge(Integer age) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setBudget(Integer budget) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setWantToBuy(List<Item> wantToBuy) {
+            throw readOnly();
+        }
+    }
+
+    private static final class FrozenItem extends Item {
+
+        private FrozenItem(Item item) {
+            super.setName(item.getName());
+            super.setNameId(item.getNameId());
+            super.setPrice(item.getPrice());
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setNameId(int nameId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPrice(Integer price) {
+            throw readOnly();
+        }
+    }
+
+    private static final class State {
+
+        private final OnlineShoppingMall mall;
+        private final long lastModified;
+        private final long length;
+        private final long checksum;
+
+        private State(OnlineShoppingMall mall, long lastModified, long length, long checksum) {
+            this.mall = mall;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        private boolean matches(File file) {
+            return lastModified == file.lastModified() && length == file.length();
+        }
+    }
+}
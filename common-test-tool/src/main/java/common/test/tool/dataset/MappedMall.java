@@ -0,0 +1,397 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.NameDictionary;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read-only mall backed by a memory-mapped columnar file written by {@link MappedMallWriter}.
+ * <p>
+ * Layout (little endian): a header of {@link #HEADER_BYTES}, the {@code int} columns
+ * (name offsets, shop names, shop item offsets, item names, item prices, customer names, ages, budgets,
+ * wanted item offsets, wanted names, wanted prices) and finally the UTF-8 name arena.
+ * Absent values are stored as {@link #NULL}, which {@link MappedMallWriter} therefore refuses as a real value.
+ * <p>
+ * Opening a file only maps it; the entity accessors return lightweight views that read the columns on demand.
+ * The views report the file's name ids through {@code getNameId()}, which were assigned by a
+ * {@link common.test.tool.entity.NameDictionary} when the file was written.
+ */
+public final class MappedMall {
+
+    static final int MAGIC = 0x4C4C414D;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8 * Integer.BYTES;
+    public static final int NULL = Integer.MIN_VALUE;
+
+    private final ByteBuffer arena;
+    private final int[] arenaOffsets;
+    private final String[] names;
+
+    private final int shopCount;
+    private final int customerCount;
+    private final IntBuffer shopName;
+    private final IntBuffer shopItemStart;
+    private final IntBuffer itemName;
+    private final IntBuffer itemPrice;
+    private final IntBuffer customerName;
+    private final IntBuffer customerAge;
+    private final IntBuffer customerBudget;
+    private final IntBuffer wantStart;
+    private final IntBuffer wantName;
+    private final IntBuffer wantPrice;
+
+    private MappedMall(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a mapped mall file");
+        }
+        int nameCount = buffer.getInt(8);
+        shopCount = buffer.getInt(12);
+        int itemCount = buffer.getInt(16);
+        customerCount = buffer.getInt(20);
+        int wantCount = buffer.getInt(24);
+        int arenaSize = buffer.getInt(28);
+
+        int position = HEADER_BYTES;
+        IntBuffer offsets = ints(buffer, position, nameCount + 1);
+        position += (nameCount + 1) * Integer.BYTES;
+        shopName = ints(buffer, position, shopCount);
+        position += shopCount * Integer.BYTES;
+        shopItemStart = ints(buffer, position, shopCount + 1);
+        position += (shopCount + 1) * Integer.BYTES;
+        itemName = ints(buffer, position, itemCount);
+        position += itemCount * Integer.BYTES;
+        itemPrice = ints(buffer, position, itemCount);
+        position += itemCount * Integer.BYTES;
+        customerName = ints(buffer, position, customerCount);
+        position += customerCount * Integer.BYTES;
+        customerAge = ints(buffer, position, customerCount);
+        position += customerCount * Integer.BYTES;
+        customerBudget = ints(buffer, position, customerCount);
+        position += customerCount * Integer.BYTES;
+        wantStart = ints(buffer, position, customerCount + 1);
+        position += (customerCount + 1) * Integer.BYTES;
+        wantName = ints(buffer, position, wantCount);
+        position += wantCount * Integer.BYTES;
+        wantPrice = ints(buffer, position, wantCount);
+        position += wantCount * Integer.BYTES;
+        arena = slice(buffer, position, arenaSize);
+
+        arenaOffsets = new int[nameCount + 1];
+        offsets.get(arenaOffsets);
+        names = new String[nameCount];
+    }
+
+    public static MappedMall open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedMall(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position).limit(position + length);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IntBuffer ints(ByteBuffer buffer, int position, int length) {
+        return slice(buffer, position, length * Integer.BYTES).asIntBuffer();
+    }
+
+    public int nameCount() {
+        return names.length;
+    }
+
+    /** Decodes a dictionary name. Names are cached; a race may decode the same name twice, which is harmless. */
+    public String name(int id) {
+        if (id == NULL) {
+            return null;
+        }
+        String name = names[id];
+        if (name == null) {
+            int start = arenaOffsets[id];
+            byte[] bytes = new byte[arenaOffsets[id + 1] - start];
+            ByteBuffer view = arena.duplicate();
+            view.position(start);
+            view.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+            names[id] = name;
+        }
+        return name;
+    }
+
+    public int shopCount() {
+        return shopCount;
+    }
+
+    public int shopNameId(int shop) {
+        return shopName.get(shop);
+    }
+
+    public int shopItemStart(int shop) {
+        return shopItemStart.get(shop);
+    }
+
+    public int shopItemEnd(int shop) {
+        return shopItemStart.get(shop + 1);
+    }
+
+    public int itemCount() {
+        return itemName.limit();
+    }
+
+    public int itemNameId(int item) {
+        return itemName.get(item);
+    }
+
+    public int itemPrice(int item) {
+        return itemPrice.get(item);
+    }
+
+    public int customerCount() {
+        return customerCount;
+    }
+
+    public int customerNameId(int customer) {
+        return customerName.get(customer);
+    }
+
+    public int customerAge(int customer) {
+        return customerAge.get(customer);
+    }
+
+    public int customerBudget(int customer) {
+        return customerBudget.get(customer);
+    }
+
+    public int wantStart(int customer) {
+        return wantStart.get(customer);
+    }
+
+    public int wantEnd(int customer) {
+        return wantStart.get(customer + 1);
+    }
+
+    public int wantNameId(int want) {
+        return wantName.get(want);
+    }
+
+    public List<Shop> getShopList() {
+        return new ViewList<>(shopCount, ShopView::new);
+    }
+
+    public List<Customer> getCustomerList() {
+        return new ViewList<>(customerCount, CustomerView::new);
+    }
+
+    /** Presents the mapped columns through the regular entity API. */
+    public OnlineShoppingMall toMall() {
+        OnlineShoppingMall mall = new OnlineShoppingMall();
+        mall.setShopList(getShopList());
+        mall.setCustomerList(getCustomerList());
+        return mall;
+    }
+
+    private static Integer boxed(int value) {
+        return value == NULL ? null : value;
+    }
+
+    private static int nameIdOrNone(int id) {
+        return id == NULL ? NameDictionary.NO_ID : id;
+    }
+
+    private interface ViewFactory<T> {
+        T create(MappedMall mall, int index);
+    }
+
+    private final class ViewList<T> extends AbstractList<T> {
+
+        private final int size;
+        private final ViewFactory<T> factory;
+
+        private ViewList(int size, ViewFactory<T> factory) {
+            this.size = size;
+            this.factory = factory;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return factory.create(MappedMall.this, index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static final class ItemView extends Item {
+
+        private final MappedMall mall;
+        private final IntBuffer names;
+        private final IntBuffer prices;
+        private final int index;
+
+        private ItemView(MappedMall mall, IntBuffer names, IntBuffer prices, int index) {
+            this.mall = mall;
+            this.names = names;
+            this.prices = prices;
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return mall.name(names.get(index));
+        }
+
+        @Override
+        public Integer getPrice() {
+            return boxed(prices.get(index));
+        }
+
+        @Override
+        public int getNameId() {
+            return nameIdOrNone(names.get(index));
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setNameId(int nameId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setPrice(Integer price) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class ShopView extends Shop {
+
+        private final MappedMall mall;
+        private final int index;
+
+        private ShopView(MappedMall mall, int index) {
+            this.mall = mall;
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return mall.name(mall.shopNameId(index));
+        }
+
+        @Override
+        public int getNameId() {
+            return nameIdOrNone(mall.shopNameId(index));
+        }
+
+        @Override
+        public List<Item> getItemList() {
+            int start = mall.shopItemStart(index);
+            return mall.new ViewList<>(mall.shopItemEnd(index) - start,
+                (m, i) -> new ItemView(m, m.itemName, m.itemPrice, start + i));
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setItemList(List<Item> itemList) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setNameId(int nameId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class CustomerView extends Customer {
+
+        private final MappedMall mall;
+        private final int index;
+
+        private CustomerView(MappedMall mall, int index) {
+            this.mall = mall;
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            return mall.name(mall.customerNameId(index));
+        }
+
+        @Override
+        public int getNameId() {
+            return nameIdOrNone(mall.customerNameId(index));
+        }
+
+        @Override
+        public Integer getAge() {
+            return boxed(mall.customerAge(index));
+        }
+
+        @Override
+        public Integer getBudget() {
+            return boxed(mall.customerBudget(index));
+        }
+
+        @Override
+        public List<Item> getWantToBuy() {
+            int start = mall.wantStart(index);
+            return mall.new ViewList<>(mall.wantEnd(index) - start,
+                (m, i) -> new ItemView(m, m.wantName, m.wantPrice, start + i));
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setAge(Integer age) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setBudget(Integer budget) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setWantToBuy(List<Item> wantToBuy) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setNameId(int nameId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.NameDictionary;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compiles shops and customers into the columnar binary format read by {@link MappedMall}.
+ * Only the columns are buffered, never the entity graph, so {@link #compile(File, Path)} can convert
+ * an XML file section by section with {@link StreamingMallReader}.
+ */
+public final class MappedMallWriter {
+
+    private final NameDictionary dictionary = new NameDictionary();
+
+    private final Column shopName = new Column();
+    private final Column shopItemStart = new Column();
+    private final Column itemName = new Column();
+    private final Column itemPrice = new Column();
+
+    private final Column customerName = new Column();
+    private final Column customerAge = new Column();
+    private final Column customerBudget = new Column();
+    private final Column wantStart = new Column();
+    private final Column wantName = new Column();
+    private final Column wantPrice = new Column();
+
+    public MappedMallWriter() {
+        shopItemStart.add(0);
+        wantStart.add(0);
+    }
+
+    public static void compile(File xml, Path out) {
+        MappedMallWriter writer = new MappedMallWriter();
+        try (Stream<Shop> shops = StreamingMallReader.shops(xml)) {
+            shops.forEachOrdered(writer::addShop);
+        }
+        try (Stream<Customer> customers = StreamingMallReader.customers(xml)) {
+            customers.forEachOrdered(writer::addCustomer);
+        }
+        writer.writeTo(out);
+    }
+
+    public static void write(OnlineShoppingMall mall, Path out) {
+        MappedMallWriter writer = new MappedMallWriter();
+        mall.getShopList().forEach(writer::addShop);
+        mall.getCustomerList().forEach(writer::addCustomer);
+        writer.writeTo(out);
+    }
+
+    public MappedMallWriter addShop(Shop shop) {
+        shopName.add(nameId(shop.getName()));
+        addItems(shop.getItemList(), itemName, itemPrice);
+        shopItemStart.add(itemName.size);
+        return this;
+    }
+
+    public MappedMallWriter addCustomer(Customer customer) {
+        customerName.add(nameId(customer.getName()));
+        customerAge.add(orNull(customer.getAge()));
+        customerBudget.add(orNull(customer.getBudget()));
+        addItems(customer.getWantToBuy(), wantName, wantPrice);
+        wantStart.add(wantName.size);
+        return this;
+    }
+
+    private void addItems(List<Item> items, Column names, Column prices) {
+        if (items == null) {
+            return;
+        }
+        for (Item item : items) {
+            names.add(nameId(item.getName()));
+            prices.add(orNull(item.getPrice()));
+        }
+    }
+
+    private int nameId(String name) {
+        if (name == null) {
+            return MappedMall.NULL;
+        }
+        return dictionary.intern(name);
+    }
+
+    private static int orNull(Integer value) {
+        if (value == null) {
+            return MappedMall.NULL;
+        }
+        if (value == MappedMall.NULL) {
+            throw new IllegalArgumentException(value + " is reserved for absent values in a mapped mall");
+        }
+        return value;
+    }
+
+    public void writeTo(Path out) {
+        Column nameOffsets = new Column();
+        for (int id = 0; id <= dictionary.size(); id++) {
+            nameOffsets.add(dictionary.offset(id));
+        }
+        Column[] columns = {
+            nameOffsets, shopName, shopItemStart, itemName, itemPrice,
+            customerName, customerAge, customerBudget, wantStart, wantName, wantPrice
+        };
+        long intCount = 0;
+        for (Column column : columns) {
+            intCount += column.size;
+        }
+        long size = MappedMall.HEADER_BYTES + intCount * Integer.BYTES + dictionary.arenaLength();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Mapped mall larger than 2GB: " + size + " bytes");
+        }
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MappedMall.MAGIC)
+                .putInt(MappedMall.VERSION)
+                .putInt(dictionary.size())
+                .putInt(shopName.size)
+                .putInt(itemName.size)
+                .putInt(customerName.size)
+                .putInt(wantName.size)
+                .putInt(dictionary.arenaLength());
+            IntBuffer ints = buffer.asIntBuffer();
+            for (Column column : columns) {
+                ints.put(column.values, 0, column.size);
+            }
+            buffer.position(buffer.position() + ints.position() * Integer.BYTES);
+            buffer.put(dictionary.copyArena());
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Column {
+
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Shop;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the {@code <shops>} or {@code <customers>} section of a mall XML file as a lazy {@link Stream},
+ * unmarshalling one element at a time so memory stays bounded by a single {@link Shop} or {@link Customer}.
+ * <p>
+ * The returned streams hold the file open and must be closed, e.g. with try-with-resources.
+ */
+public final class StreamingMallReader {
+
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+    private StreamingMallReader() {
+    }
+
+    public static Stream<Customer> customers(File file) {
+        return stream(file, "customers", "customer", Customer.class);
+    }
+
+    public static Stream<Shop> shops(File file) {
+        return stream(file, "shops", "shop", Shop.class);
+    }
+
+    private static <T> Stream<T> stream(File file, String wrapper, String element, Class<T> type) {
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(Files.newInputStream(file.toPath()));
+            XMLStreamReader reader;
+            synchronized (INPUT_FACTORY) {
+                reader = INPUT_FACTORY.createXMLStreamReader(in);
+            }
+            ElementSpliterator<T> spliterator =
+                new ElementSpliterator<>(reader, MallJaxb.CONTEXT.createUnmarshaller(), wrapper, element, type);
+            InputStream source = in;
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    reader.close();
+                    source.close();
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException | JAXBException e) {
+            closeQuietly(in);
+            throw new IllegalStateException("Failed to open " + file, e);
+        }
+    }
+
+    /** Mall files never need a DTD, so neither DTDs nor external entities are resolved (XXE). */
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final class ElementSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final XMLStreamReader reader;
+        private final Unmarshaller unmarshaller;
+        private final String wrapper;
+        private final String element;
+        private final Class<T> type;
+        private boolean inWrapper;
+        private boolean done;
+
+        private ElementSpliterator(XMLStreamReader reader, Unmarshaller unmarshaller,
+                                   String wrapper, String element, Class<T> type) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.reader = reader;
+            this.unmarshaller = unmarshaller;
+            this.wrapper = wrapper;
+            this.element = element;
+            this.type = type;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (done) {
+                return false;
+            }
+            try {
+                // after unmarshal() the reader already points at the event following the element
+                int event = reader.getEventType();
+                while (true) {
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (!inWrapper && name.equals(wrapper)) {
+                            inWrapper = true;
+                        } else if (inWrapper && name.equals(element)) {
+                            action.accept(unmarshaller.unmarshal(reader, type).getValue());
+                            return true;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (inWrapper && reader.getLocalName().equals(wrapper)) {
+                            done = true;
+                            return false;
+                        }
+                    } else if (event == XMLStreamConstants.END_DOCUMENT) {
+                        done = true;
+                        return false;
+                    }
+                    event = reader.next();
+                }
+            } catch (XMLStreamException | JAXBException e) {
+                throw new IllegalStateException("Failed to read <" + element + ">", e);
+            }
+        }
+    }
+}
@@ -4,10 +4,12 @@ import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class Customer {
 
     private String name;
+    private int nameId = NameDictionary.NO_ID;
     private Integer age;
     private Integer budget;
     private List<Item> wantToBuy;
@@ -47,4 +49,14 @@ public class Customer {
     public void setWantToBuy(List<Item> wantToBuy) {
         this.wantToBuy = wantToBuy;
     }
+
+    /** Id assigned by {@link NameDictionary#index}, or {@link NameDictionary#NO_ID}. */
+    @XmlTransient
+    public int getNameId() {
+        return nameId;
+    }
+
+    public void setNameId(int nameId) {
+        this.nameId = nameId;
+    }
 }
@@ -0,0 +1,145 @@
+package common.test.tool.entity;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Struct-of-arrays view of customers: names, ages and budgets are stored in parallel columns so that
+ * numeric queries run over contiguous {@code int[]} memory instead of boxed {@link Integer}s.
+ * The columns are copied on construction and never modified afterwards.
+ * <p>
+ * Absent ages and budgets are stored as 0 and flagged in a null mask; the column streams and aggregates skip
+ * them, as a SQL aggregate would, and {@link #toCustomer(int)} restores them as {@code null}.
+ */
+public final class CustomerTable {
+
+    private final String[] names;
+    private final int[] ages;
+    private final int[] budgets;
+    private final BitSet missingAges;
+    private final BitSet missingBudgets;
+
+    private CustomerTable(String[] names, int[] ages, int[] budgets, BitSet missingAges, BitSet missingBudgets) {
+        if (names.length != ages.length || names.length != budgets.length) {
+            throw new IllegalArgumentException("Columns must have the same length");
+        }
+        this.names = names;
+        this.ages = ages;
+        this.budgets = budgets;
+        this.missingAges = missingAges;
+        this.missingBudgets = missingBudgets;
+    }
+
+    public static CustomerTable of(List<Customer> customers) {
+        int size = customers.size();
+        String[] names = new String[size];
+        int[] ages = new int[size];
+        int[] budgets = new int[size];
+        BitSet missingAges = new BitSet();
+        BitSet missingBudgets = new BitSet();
+        int row = 0;
+        for (Customer customer : customers) {
+            names[row] = customer.getName();
+            ages[row] = orZero(customer.getAge(), row, missingAges);
+            budgets[row] = orZero(customer.getBudget(), row, missingBudgets);
+            row++;
+        }
+        return new CustomerTable(names, ages, budgets, missingAges, missingBudgets);
+    }
+
+    public static CustomerTable of(String[] names, int[] ages, int[] budgets) {
+        return new CustomerTable(names.clone(), ages.clone(), budgets.clone(), new BitSet(), new BitSet());
+    }
+
+    /** The value, or 0 with its row flagged in {@code missing}. */
+    static int orZero(Integer value, int row, BitSet missing) {
+        if (value == null) {
+            missing.set(row);
+            return 0;
+        }
+        return value;
+    }
+
+    /** The column without the flagged rows. */
+    static IntStream present(int[] column, BitSet missing) {
+        if (missing.isEmpty()) {
+            return StreamSupport.intStream(Arrays.spliterator(column), false);
+        }
+        return IntStream.range(0, column.length).filter(row -> !missing.get(row)).map(row -> column[row]);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    /** Age of the row, or 0 when it is absent. */
+    public int age(int row) {
+        return ages[row];
+    }
+
+    public boolean hasAge(int row) {
+        return !missingAges.get(row);
+    }
+
+    /** Budget of the row, or 0 when it is absent. */
+    public int budget(int row) {
+        return budgets[row];
+    }
+
+    public boolean hasBudget(int row) {
+        return !missingBudgets.get(row);
+    }
+
+    /** Row indices, for queries that need several columns of the same row. */
+    public IntStream rows() {
+        return IntStream.range(0, names.length);
+    }
+
+    /** Present ages, in row order. */
+    public IntStream ages() {
+        return present(ages, missingAges);
+    }
+
+    /** Present budgets, in row order. */
+    public IntStream budgets() {
+        return present(budgets, missingBudgets);
+    }
+
+    /**
+     * {@code SIZED | SUBSIZED | ORDERED | IMMUTABLE} spliterator over the present ages, which splits evenly in
+     * parallel streams; only {@code ORDERED} and splittable once any age is absent.
+     */
+    public Spliterator.OfInt ageSpliterator() {
+        return ages().spliterator();
+    }
+
+    public Spliterator.OfInt budgetSpliterator() {
+        return budgets().spliterator();
+    }
+
+    public OptionalDouble averageAge() {
+        return ages().average();
+    }
+
+    public OptionalInt maxBudget() {
+        return budgets().max();
+    }
+
+    public Customer toCustomer(int row) {
+        Customer customer = new Customer();
+        customer.setName(names[row]);
+        customer.setAge(hasAge(row) ? ages[row] : null);
+        customer.setBudget(hasBudget(row) ? budgets[row] : null);
+        return customer;
+    }
+}
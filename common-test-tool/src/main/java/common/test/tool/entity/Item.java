@@ -1,10 +1,12 @@
 package common.test.tool.entity;
 
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class Item {
 
     private String name;
+    private int nameId = NameDictionary.NO_ID;
     private Integer price;
 
     @XmlAttribute
@@ -24,4 +26,14 @@ public class Item {
     public void setPrice(Integer price) {
         this.price = price;
     }
+
+    /** Id assigned by {@link NameDictionary#index}, or {@link NameDictionary#NO_ID}. */
+    @XmlTransient
+    public int getNameId() {
+        return nameId;
+    }
+
+    public void setNameId(int nameId) {
+        this.nameId = nameId;
+    }
 }
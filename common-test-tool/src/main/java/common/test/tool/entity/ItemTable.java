@@ -0,0 +1,124 @@
+package common.test.tool.entity;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Struct-of-arrays view of items: names and prices are stored in parallel columns so that price
+ * aggregates run over a contiguous {@code int[]} instead of boxed {@link Integer}s.
+ * The columns are copied on construction and never modified afterwards.
+ * <p>
+ * Absent prices are handled as in {@link CustomerTable}: stored as 0, flagged, and skipped by the aggregates.
+ */
+public final class ItemTable {
+
+    private final String[] names;
+    private final int[] prices;
+    private final BitSet missingPrices;
+
+    private ItemTable(String[] names, int[] prices, BitSet missingPrices) {
+        if (names.length != prices.length) {
+            throw new IllegalArgumentException("Columns must have the same length");
+        }
+        this.names = names;
+        this.prices = prices;
+        this.missingPrices = missingPrices;
+    }
+
+    public static ItemTable of(List<Item> items) {
+        String[] names = new String[items.size()];
+        int[] prices = new int[items.size()];
+        BitSet missingPrices = new BitSet();
+        int row = 0;
+        for (Item item : items) {
+            names[row] = item.getName();
+            prices[row] = CustomerTable.orZero(item.getPrice(), row, missingPrices);
+            row++;
+        }
+        return new ItemTable(names, prices, missingPrices);
+    }
+
+    /** Flattens the items of all shops, in shop order; shops without an item list contribute nothing. */
+    public static ItemTable ofShops(List<Shop> shops) {
+        int size = 0;
+        for (Shop shop : shops) {
+            if (shop.getItemList() != null) {
+                size += shop.getItemList().size();
+            }
+        }
+        String[] names = new String[size];
+        int[] prices = new int[size];
+        BitSet missingPrices = new BitSet();
+        int row = 0;
+        for (Shop shop : shops) {
+            if (shop.getItemList() == null) {
+                continue;
+            }
+            for (Item item : shop.getItemList()) {
+                names[row] = item.getName();
+                prices[row] = CustomerTable.orZero(item.getPrice(), row, missingPrices);
+                row++;
+            }
+        }
+        return new ItemTable(names, prices, missingPrices);
+    }
+
+    public static ItemTable of(String[] names, int[] prices) {
+        return new ItemTable(names.clone(), prices.clone(), new BitSet());
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    /** Price of the row, or 0 when it is absent. */
+    public int price(int row) {
+        return prices[row];
+    }
+
+    public boolean hasPrice(int row) {
+        return !missingPrices.get(row);
+    }
+
+    public IntStream rows() {
+        return IntStream.range(0, names.length);
+    }
+
+    /** Present prices, in row order. */
+    public IntStream prices() {
+        return CustomerTable.present(prices, missingPrices);
+    }
+
+    /** As {@link CustomerTable#ageSpliterator()}, over the present prices. */
+    public Spliterator.OfInt priceSpliterator() {
+        return prices().spliterator();
+    }
+
+    /** Prices widened to {@code long}, so sums over large catalogs do not overflow. */
+    public LongStream longPrices() {
+        return prices().asLongStream();
+    }
+
+    /** Sum of the present prices; absent ones are stored as 0 and add nothing. */
+    public long totalPrice() {
+        long total = 0;
+        for (int price : prices) {
+            total += price;
+        }
+        return total;
+    }
+
+    public Item toItem(int row) {
+        Item item = new Item();
+        item.setName(names[row]);
+        item.setPrice(hasPrice(row) ? prices[row] : null);
+        return item;
+    }
+}
@@ -0,0 +1,154 @@
+package common.test.tool.entity;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash index over the shop catalog keyed by item name: cheapest price, offering shops and
+ * on-sale membership, each answered in O(1).
+ * <p>
+ * Reads are lock-free and may run concurrently with updates. The index does not observe the shops
+ * it was built from; callers that change a shop's item list report the change through
+ * {@link #addItem}, {@link #removeItem}, {@link #addShop} or {@link #removeShop}.
+ * A price change is a {@link #removeItem} with the old price followed by an {@link #addItem}.
+ */
+public final class MallIndex {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public static MallIndex of(List<Shop> shops) {
+        MallIndex index = new MallIndex();
+        shops.forEach(index::addShop);
+        return index;
+    }
+
+    public boolean isOnSale(String name) {
+        return entries.containsKey(name);
+    }
+
+    public OptionalInt minPrice(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? OptionalInt.empty() : OptionalInt.of(entry.minPrice);
+    }
+
+    /** Cheapest price of the item, or {@code absent} if no shop sells it. */
+    public int minPrice(String name, int absent) {
+        Entry entry = entries.get(name);
+        return entry == null ? absent : entry.minPrice;
+    }
+
+    /**
+     * Shops selling the item, or an empty set. The returned set is an immutable snapshot, copied on the first
+     * read after the shops offering the item change.
+     */
+    public Set<Shop> shopsOffering(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? Collections.emptySet() : entry.shops();
+    }
+
+    /** Live, unmodifiable view of the item names on sale. */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Adds the shop's items; a shop without an item list offers nothing. */
+    public void addShop(Shop shop) {
+        if (shop.getItemList() != null) {
+            shop.getItemList().forEach(item -> addItem(shop, item));
+        }
+    }
+
+    public void removeShop(Shop shop) {
+        if (shop.getItemList() != null) {
+            shop.getItemList().forEach(item -> removeItem(shop, item));
+        }
+    }
+
+    /** Adds the offering; items without a name or a price are not indexed. */
+    public void addItem(Shop shop, Item item) {
+        if (!indexed(item)) {
+            return;
+        }
+        entries.compute(item.getName(), (name, entry) -> {
+            Entry updated = entry == null ? new Entry() : entry;
+            updated.add(shop, item.getPrice());
+            return updated;
+        });
+    }
+
+    public void removeItem(Shop shop, Item item) {
+        if (indexed(item)) {
+            entries.computeIfPresent(item.getName(), (name, entry) -> entry.remove(shop, item.getPrice()) ? entry : null);
+        }
+    }
+
+    private static boolean indexed(Item item) {
+        return item != null && item.getName() != null && item.getPrice() != null;
+    }
+
+    /** Mutated only inside {@link ConcurrentHashMap#compute}, which serializes updates per key. */
+    private static final class Entry {
+
+        private final TreeMap<Integer, Integer> priceCounts = new TreeMap<>();
+        // Shop keeps Object's identity equality, so this counts offerings per shop instance
+        private final ConcurrentHashMap<Shop, Integer> shopCounts = new ConcurrentHashMap<>();
+        private volatile int minPrice;
+        // bumped whenever a shop starts or stops offering the item; a cached copy is valid for one version
+        private volatile long shopsVersion;
+        private volatile ShopsCopy shopsCopy;
+
+        private void add(Shop shop, int price) {
+            priceCounts.merge(price, 1, Integer::sum);
+            if (shopCounts.merge(shop, 1, Integer::sum) == 1) {
+                shopsVersion++;
+            }
+            minPrice = priceCounts.firstKey();
+        }
+
+        /** Returns {@code false} once the last offering is gone. */
+        private boolean remove(Shop shop, int price) {
+            priceCounts.computeIfPresent(price, (p, count) -> count == 1 ? null : count - 1);
+            if (shopCounts.containsKey(shop)
+                && shopCounts.computeIfPresent(shop, (s, count) -> count == 1 ? null : count - 1) == null) {
+                shopsVersion++;
+            }
+            if (priceCounts.isEmpty()) {
+                return false;
+            }
+            minPrice = priceCounts.firstKey();
+            return true;
+        }
+
+        private Set<Shop> shops() {
+            long version = shopsVersion;
+            ShopsCopy copy = shopsCopy;
+            if (copy == null || copy.version != version) {
+                Set<Shop> shops = Collections.newSetFromMap(new IdentityHashMap<>(shopCounts.size()));
+                shops.addAll(shopCounts.keySet());
+                copy = new ShopsCopy(version, Collections.unmodifiableSet(shops));
+                shopsCopy = copy;
+            }
+            return copy.shops;
+        }
+    }
+
+    private static final class ShopsCopy {
+
+        private final long version;
+        private final Set<Shop> shops;
+
+        private ShopsCopy(long version, Set<Shop> shops) {
+            this.version = version;
+            this.shops = shops;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package common.test.tool.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A mall that can change after loading, with aggregates that follow every change instead of being
+ * recomputed by full scans.
+ * <p>
+ * Registered aggregates are seeded once from the current contents and afterwards updated per added or removed
+ * item or customer: sums, counts and averages in O(1), min/max over a price multiset in O(log n), per-group
+ * counts in O(1). The {@link MallIndex} returned by {@link #index()} is kept in sync the same way.
+ * <p>
+ * The mall owns the shops, items and customers handed to it; they must only be changed through this class, and
+ * each may belong to the mall once. Shop item lists are replaced by read-only views of lists the mall keeps.
+ * Shops, items and customers are tracked in identity maps, so membership checks are O(1); removals keep the
+ * order of the remaining elements and, like {@link List#remove(Object)}, are linear in the list they change.
+ * Changes are serialized on the mall; aggregates can be read from other threads while changes are applied.
+ */
+public final class MutableMall {
+
+    private final List<Shop> shops = new ArrayList<>();
+    private final List<Customer> customers = new ArrayList<>();
+    private final Map<Shop, List<Item>> itemLists = new IdentityHashMap<>();
+    private final Map<Item, Shop> itemShops = new IdentityHashMap<>();
+    private final Set<Customer> customerSet = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final MallIndex index = new MallIndex();
+    private final List<Aggregate<Item>> itemAggregates = new CopyOnWriteArrayList<>();
+    private final List<Aggregate<Customer>> customerAggregates = new CopyOnWriteArrayList<>();
+    private volatile long version;
+
+    /** A mutable copy of {@code mall}; the source, which may be a frozen snapshot, is not changed. */
+    public static MutableMall of(OnlineShoppingMall mall) {
+        MutableMall copy = new MutableMall();
+        mall.getShopList().forEach(shop -> copy.addShop(copyOf(shop)));
+        mall.getCustomerList().forEach(customer -> copy.addCustomer(copyOf(customer)));
+        return copy;
+    }
+
+    /**
+     * Unmodifiable view of the shops, whose item lists are unmodifiable too; it reflects later changes and must not
+     * be iterated while they happen.
+     */
+    public synchronized List<Shop> getShopList() {
+        return Collections.unmodifiableList(shops);
+    }
+
+    /** Unmodifiable view of the customers; same caveat as {@link #getShopList()}. */
+    public synchronized List<Customer> getCustomerList() {
+        return Collections.unmodifiableList(customers);
+    }
+
+    /** Number of changes applied so far; results computed at one version stay valid until it moves. */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Runs a read-only query against the current contents while holding off changes, e.g.
+     * {@code mall.read(plan::run)} for a {@link common.test.tool.query.QueryPlan}.
+     */
+    public synchronized <R> R read(Function<? super OnlineShoppingMall, ? extends R> query) {
+        OnlineShoppingMall view = new OnlineShoppingMall();
+        view.setShopList(Collections.unmodifiableList(shops));
+        view.setCustomerList(Collections.unmodifiableList(customers));
+        return query.apply(view);
+    }
+
+    /** Item name index over the shops, updated with every change. */
+    public MallIndex index() {
+        return index;
+    }
+
+    /** A detached copy of the current contents. */
+    public synchronized OnlineShoppingMall toMall() {
+        OnlineShoppingMall mall = new OnlineShoppingMall();
+        List<Shop> shopCopies = new ArrayList<>(shops.size());
+        shops.forEach(shop -> shopCopies.add(copyOf(shop)));
+        List<Customer> customerCopies = new ArrayList<>(customers.size());
+        customers.forEach(customer -> customerCopies.add(copyOf(customer)));
+        mall.setShopList(shopCopies);
+        mall.setCustomerList(customerCopies);
+        return mall;
+    }
+
+    public synchronized void addShop(Shop shop) {
+        if (itemLists.containsKey(shop)) {
+            throw new IllegalArgumentException("Shop already in mall: " + shop.getName());
+        }
+        List<Item> items = shop.getItemList() == null ? new ArrayList<>() : new ArrayList<>(shop.getItemList());
+        Map<Item, Shop> added = new IdentityHashMap<>(items.size() * 2);
+        for (Item item : items) {
+            if (itemShops.containsKey(item) || added.put(item, shop) != null) {
+                throw new IllegalArgumentException("Item already in mall: " + item.getName());
+            }
+        }
+        itemLists.put(shop, items);
+        itemShops.putAll(added);
+        shop.setItemList(Collections.unmodifiableList(items));
+        shops.add(shop);
+        index.addShop(shop);
+        items.forEach(item -> itemAggregates.forEach(aggregate -> aggregate.add(item)));
+        version++;
+    }
+
+    public synchronized void removeShop(Shop shop) {
+        List<Item> items = itemLists.remove(checkShop(shop));
+        removeIdentical(shops, shop);
+        items.forEach(itemShops::remove);
+        index.removeShop(shop);
+        items.forEach(item -> itemAggregates.forEach(aggregate -> aggregate.remove(item)));
+        version++;
+    }
+
+    public synchronized void addItem(Shop shop, Item item) {
+        List<Item> items = itemLists.get(checkShop(shop));
+        if (itemShops.containsKey(item)) {
+            throw new IllegalArgumentException("Item already in mall: " + item.getName());
+        }
+        items.add(item);
+        itemShops.put(item, shop);
+        index.addItem(shop, item);
+        itemAggregates.forEach(aggregate -> aggregate.add(item));
+        version++;
+    }
+
+    public synchronized void removeItem(Shop shop, Item item) {
+        checkItem(shop, item);
+        removeIdentical(itemLists.get(shop), item);
+        itemShops.remove(item);
+        index.removeItem(shop, item);
+        itemAggregates.forEach(aggregate -> aggregate.remove(item));
+        version++;
+    }
+
+    public synchronized void changePrice(Shop shop, Item item, int price) {
+        checkItem(shop, item);
+        index.removeItem(shop, item);
+        itemAggregates.forEach(aggregate -> aggregate.remove(item));
+        item.setPrice(price);
+        index.addItem(shop, item);
+        itemAggregates.forEach(aggregate -> aggregate.add(item));
+        version++;
+    }
+
+    public synchronized void addCustomer(Customer customer) {
+        if (!customerSet.add(customer)) {
+            throw new IllegalArgumentException("Customer already in mall: " + customer.getName());
+        }
+        customers.add(customer);
+        customerAggregates.forEach(aggregate -> aggregate.add(customer));
+        version++;
+    }
+
+    public synchronized void removeCustomer(Customer customer) {
+        if (!customerSet.remove(customer)) {
+            throw new IllegalArgumentException("Customer not in mall: " + customer.getName());
+        }
+        removeIdentical(customers, customer);
+        customerAggregates.forEach(aggregate -> aggregate.remove(customer));
+        version++;
+    }
+
+    /** Live statistics of {@code value} over all shop items, e.g. {@code itemStatistics(Item::getPrice)}. */
+    public synchronized IntStatistics<Item> itemStatistics(ToIntFunction<? super Item> value) {
+        IntStatistics<Item> statistics = new IntStatistics<>(value);
+        shops.forEach(shop -> shop.getItemList().forEach(statistics::add));
+        itemAggregates.add(statistics);
+        return statistics;
+    }
+
+    /** Live statistics of {@code value} over all customers, e.g. {@code customerStatistics(Customer::getAge)}. */
+    public synchronized IntStatistics<Customer> customerStatistics(ToIntFunction<? super Customer> value) {
+        IntStatistics<Customer> statistics = new IntStatistics<>(value);
+        customers.forEach(statistics::add);
+        customerAggregates.add(statistics);
+        return statistics;
+    }
+
+    /** Live number of shop items per group, e.g. {@code itemCounts(Item::getName)}. */
+    public synchronized <K> GroupCounts<Item, K> itemCounts(Function<? super Item, ? extends K> group) {
+        GroupCounts<Item, K> counts = new GroupCounts<>(group);
+        shops.forEach(shop -> shop.getItemList().forEach(counts::add));
+        itemAggregates.add(counts);
+        return counts;
+    }
+
+    /** Live number of customers per group, e.g. {@code customerCounts(Customer::getAge)}. */
+    public synchronized <K> GroupCounts<Customer, K> customerCounts(Function<? super Customer, ? extends K> group) {
+        GroupCounts<Customer, K> counts = new GroupCounts<>(group);
+        customers.forEach(counts::add);
+        customerAggregates.add(counts);
+        return counts;
+    }
+
+    /** Stops updating {@code aggregate}; its values stay as they were. */
+    public synchronized void unregister(Aggregate<?> aggregate) {
+        itemAggregates.remove(aggregate);
+        customerAggregates.remove(aggregate);
+    }
+
+    private Shop checkShop(Shop shop) {
+        if (!itemLists.containsKey(shop)) {
+            throw new IllegalArgumentException("Shop not in mall: " + shop.getName());
+        }
+        return shop;
+    }
+
+    private void checkItem(Shop shop, Item item) {
+        checkShop(shop);
+        if (itemShops.get(item) != shop) {
+            throw new IllegalArgumentException("Item not in shop " + shop.getName() + ": " + item.getName());
+        }
+    }
+
+    /** Removes {@code element}, known to be in {@code list}, searching from the end where recent additions are. */
+    private static void removeIdentical(List<?> list, Object element) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == element) {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+
+    private static Shop copyOf(Shop shop) {
+        Shop copy = new Shop();
+        copy.setName(shop.getName());
+        copy.setNameId(shop.getNameId());
+        copy.setItemList(copyOf(shop.getItemList()));
+        return copy;
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer();
+        copy.setName(customer.getName());
+        copy.setNameId(customer.getNameId());
+        copy.setAge(customer.getAge());
+        copy.setBudget(customer.getBudget());
+        copy.setWantToBuy(copyOf(customer.getWantToBuy()));
+        return copy;
+    }
+
+    private static List<Item> copyOf(List<Item> items) {
+        if (items == null) {
+            return null;
+        }
+        List<Item> copies = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Item copy = new Item();
+            copy.setName(item.getName());
+            copy.setNameId(item.getNameId());
+            copy.setPrice(item.getPrice());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /** An aggregate maintained by the mall; elements are reported as they are added and removed. */
+    public interface Aggregate<T> {
+
+        void add(T element);
+
+        void remove(T element);
+    }
+
+    /**
+     * Sum, count and average in O(1) per change, min and max through a value multiset in O(log n).
+     * Reads are consistent with each other within one call only.
+     */
+    public static final class IntStatistics<T> implements Aggregate<T> {
+
+        private final ToIntFunction<? super T> value;
+        private final TreeMap<Integer, Integer> counts = new TreeMap<>();
+        private long sum;
+        private long count;
+
+        private IntStatistics(ToIntFunction<? super T> value) {
+            this.value = value;
+        }
+
+        @Override
+        public synchronized void add(T element) {
+            int v = value.applyAsInt(element);
+            sum += v;
+            count++;
+            counts.merge(v, 1, Integer::sum);
+        }
+
+        @Override
+        public synchronized void remove(T element) {
+            int v = value.applyAsInt(element);
+            sum -= v;
+            count--;
+            counts.computeIfPresent(v, (key, n) -> n == 1 ? null : n - 1);
+        }
+
+        public synchronized long getSum() {
+            return sum;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /** Average value, or 0 if empty, like {@link java.util.IntSummaryStatistics#getAverage()}. */
+        public synchronized double getAverage() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        public synchronized OptionalInt getMin() {
+            return counts.isEmpty() ? OptionalInt.empty() : OptionalInt.of(counts.firstKey());
+        }
+
+        public synchronized OptionalInt getMax() {
+            return counts.isEmpty() ? OptionalInt.empty() : OptionalInt.of(counts.lastKey());
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "IntStatistics{count=" + count + ", sum=" + sum + ", min=" + getMin() + ", max=" + getMax()
+                + ", average=" + getAverage() + "}";
+        }
+    }
+
+    /** Number of elements per group in O(1) per change; empty groups are dropped. */
+    public static final class GroupCounts<T, K> implements Aggregate<T> {
+
+        private final Function<? super T, ? extends K> group;
+        private final Map<K, Long> counts = new HashMap<>();
+
+        private GroupCounts(Function<? super T, ? extends K> group) {
+            this.group = group;
+        }
+
+        @Override
+        public synchronized void add(T element) {
+            counts.merge(group.apply(element), 1L, Long::sum);
+        }
+
+        @Override
+        public synchronized void remove(T element) {
+            counts.computeIfPresent(group.apply(element), (key, n) -> n == 1 ? null : n - 1);
+        }
+
+        /** Elements in {@code key}'s group, or 0. */
+        public synchronized long count(K key) {
+            return counts.getOrDefault(key, 0L);
+        }
+
+        public synchronized int groups() {
+            return counts.size();
+        }
+
+        /** Copy of the current counts. */
+        public synchronized Map<K, Long> toMap() {
+            return new HashMap<>(counts);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return counts.toString();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package common.test.tool.entity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns dense {@code int} ids to names and stores each distinct name once, UTF-8 encoded, in a byte arena.
+ * <p>
+ * Joins, sets and group-bys on names can then run on ids: two names are equal exactly when their ids are.
+ * Lookups hash the {@link String} and compare it against the arena without decoding; only {@link #name(int)}
+ * creates a String. Not thread-safe while names are being added; safe to share once fully built.
+ */
+public final class NameDictionary {
+
+    public static final int NO_ID = -1;
+
+    private byte[] arena = new byte[1024];
+    private int arenaLength;
+    private int[] offsets = new int[65];
+    private int[] hashes = new int[64];
+    private int size;
+
+    // open addressing over ids + 1, 0 marks an empty slot
+    private int[] table = new int[128];
+
+    /**
+     * Copies the mall with every shop, customer and item name interned into a new dictionary: each copy carries
+     * its name's id in {@code nameId}, and copies with equal names share one {@link String} instance. The source
+     * mall is not modified, so read-only views such as snapshots can be indexed. Null names keep
+     * {@link #NO_ID}; null lists stay null.
+     */
+    public static IndexedMall index(OnlineShoppingMall mall) {
+        NameDictionary dictionary = new NameDictionary();
+        Canonical canonical = new Canonical();
+        List<Shop> shops = new ArrayList<>(mall.getShopList().size());
+        for (Shop shop : mall.getShopList()) {
+            Shop copy = new Shop();
+            copy.setNameId(dictionary.internOrNone(shop.getName()));
+            copy.setName(canonical.of(copy.getNameId(), shop.getName()));
+            copy.setItemList(indexItems(dictionary, canonical, shop.getItemList()));
+            shops.add(copy);
+        }
+        List<Customer> customers = new ArrayList<>(mall.getCustomerList().size());
+        for (Customer customer : mall.getCustomerList()) {
+            Customer copy = new Customer();
+            copy.setNameId(dictionary.internOrNone(customer.getName()));
+            copy.setName(canonical.of(copy.getNameId(), customer.getName()));
+            copy.setAge(customer.getAge());
+            copy.setBudget(customer.getBudget());
+            copy.setWantToBuy(indexItems(dictionary, canonical, customer.getWantToBuy()));
+            customers.add(copy);
+        }
+        return new IndexedMall(dictionary, shops, customers);
+    }
+
+    private static List<Item> indexItems(NameDictionary dictionary, Canonical canonical, List<Item> items) {
+        if (items == null) {
+            return null;
+        }
+        List<Item> copies = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Item copy = new Item();
+            copy.setNameId(dictionary.internOrNone(item.getName()));
+            copy.setName(canonical.of(copy.getNameId(), item.getName()));
+            copy.setPrice(item.getPrice());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private int internOrNone(String name) {
+        return name == null ? NO_ID : intern(name);
+    }
+
+    /** Returns the id of {@code name}, adding it if absent. */
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int slot = find(name, hash);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+        int id = append(name, hash);
+        table[slot] = id + 1;
+        if (2 * size > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /** Returns the id of {@code name}, or {@link #NO_ID} if it is absent or null. */
+    public int id(String name) {
+        if (name == null) {
+            return NO_ID;
+        }
+        int slot = find(name, name.hashCode());
+        return table[slot] - 1;
+    }
+
+    public String name(int id) {
+        checkId(id);
+        return new String(arena, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Bytes used by the encoded names. */
+    public int arenaLength() {
+        return arenaLength;
+    }
+
+    /** Start of the name in {@link #copyArena()}; {@code offset(size())} is the arena length. */
+    public int offset(int id) {
+        if (id < 0 || id > size) {
+            throw new IndexOutOfBoundsException("id " + id + " of " + size);
+        }
+        return offsets[id];
+    }
+
+    public byte[] copyArena() {
+        return Arrays.copyOf(arena, arenaLength);
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("id " + id + " of " + size);
+        }
+    }
+
+    private int find(String name, int hash) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(id, name)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Compares without decoding; ASCII names are compared char by char, others after encoding the probe. */
+    private boolean matches(int id, String name) {
+        int start = offsets[id];
+        int length = offsets[id + 1] - start;
+        int chars = name.length();
+        boolean ascii = true;
+        if (chars == length) {
+            for (int i = 0; i < chars; i++) {
+                char c = name.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+                if (arena[start + i] != (byte) c) {
+                    return false;
+                }
+            }
+            if (ascii) {
+                return true;
+            }
+        } else if (chars > length) {
+            return false;
+        }
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        if (encoded.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (arena[start + i] != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int append(String name, int hash) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        if (arenaLength + encoded.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + encoded.length));
+        }
+        System.arraycopy(encoded, 0, arena, arenaLength, encoded.length);
+        arenaLength += encoded.length;
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2 + 1);
+        }
+        hashes[size] = hash;
+        offsets[size + 1] = arenaLength;
+        return size++;
+    }
+
+    private void rehash() {
+        int[] old = table;
+        table = new int[old.length * 2];
+        int mask = table.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int slot = mix(hashes[entry - 1]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry;
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** A mall copied by {@link #index}, together with the dictionary its name ids refer to. */
+    public static final class IndexedMall extends OnlineShoppingMall {
+
+        private final NameDictionary dictionary;
+
+        private IndexedMall(NameDictionary dictionary, List<Shop> shops, List<Customer> customers) {
+            this.dictionary = dictionary;
+            setShopList(shops);
+            setCustomerList(customers);
+        }
+
+        public NameDictionary dictionary() {
+            return dictionary;
+        }
+    }
+
+    /** First String instance seen per id, kept only while indexing. */
+    private static final class Canonical {
+
+        private String[] strings = new String[64];
+
+        private String of(int id, String name) {
+            if (id == NO_ID) {
+                return name;
+            }
+            if (id >= strings.length) {
+                strings = Arrays.copyOf(strings, Math.max(strings.length * 2, id + 1));
+            }
+            if (strings[id] == null) {
+                strings[id] = name;
+            }
+            return strings[id];
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package common.test.tool.entity;
 
+import common.test.tool.util.FlatListSpliterator;
+
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
@@ -32,4 +36,17 @@ public class OnlineShoppingMall {
     public void setCustomerList(List<Customer> customerList) {
         this.customerList = customerList;
     }
+
+    /**
+     * Items of all shops, in shop order. Unlike {@code flatMap} over the shops, a parallel stream splits evenly
+     * across the items, including inside a single large shop.
+     */
+    public Stream<Item> itemStream() {
+        return StreamSupport.stream(FlatListSpliterator.of(shopList, Shop::getItemList), false);
+    }
+
+    /** Items wanted by all customers, in customer order; splits like {@link #itemStream()}. */
+    public Stream<Item> wantedItemStream() {
+        return StreamSupport.stream(FlatListSpliterator.of(customerList, Customer::getWantToBuy), false);
+    }
 }
@@ -4,10 +4,12 @@ import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class Shop {
 
     private String name;
+    private int nameId = NameDictionary.NO_ID;
     private List<Item> itemList;
 
     @XmlAttribute
@@ -28,4 +30,14 @@ public class Shop {
     public void setItemList(List<Item> itemList) {
         this.itemList = itemList;
     }
+
+    /** Id assigned by {@link NameDictionary#index}, or {@link NameDictionary#NO_ID}. */
+    @XmlTransient
+    public int getNameId() {
+        return nameId;
+    }
+
+    public void setNameId(int nameId) {
+        this.nameId = nameId;
+    }
 }
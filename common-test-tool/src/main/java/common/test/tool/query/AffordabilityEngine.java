@@ -0,0 +1,140 @@
+package common.test.tool.query;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.MallIndex;
+import common.test.tool.entity.Shop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decides which customers can afford everything they want to buy.
+ * <p>
+ * A wanted item costs the cheapest price any shop asks for it and nothing if no shop sells it.
+ * Cheapest prices are looked up in a {@link MallIndex} built once, so scoring a customer is linear in the
+ * length of their wish list and the whole run is O(shop items + wanted items) instead of cubic.
+ * <p>
+ * Scaling: customers are split into ranges of {@link #DEFAULT_THRESHOLD} and scored on a {@link ForkJoinPool}.
+ * Below one range the work runs on the calling thread. Results keep the order of the input list.
+ * <p>
+ * Measured with {@code AffordabilityBenchmark} (JDK 8, one-CPU VM, generated malls with 1 to 5 wanted items per
+ * customer), average time per call. With one CPU the pool sizes only show the pool's overhead:
+ * <pre>
+ * customers   calling thread   pool of 1   pool of 2   pool of 4
+ *     1 000          0.05 ms     0.05 ms     0.06 ms     0.06 ms
+ *    10 000           1.2 ms      1.2 ms      1.2 ms      1.4 ms
+ *   100 000            13 ms       13 ms       17 ms       15 ms
+ * 1 000 000           195 ms      168 ms      200 ms      208 ms
+ * </pre>
+ * Time grows linearly, at 0.12 to 0.2 us per customer once the index no longer fits in cache, and the pool adds
+ * up to 30% on top. Parallel scaling has not been measured: these numbers are a single-core baseline, and the
+ * speed-up per pool size still has to be recorded on a multi-core machine.
+ * <p>
+ * A customer without a budget has a budget of 0 and one without a wish list wants nothing, as in
+ * {@link common.test.tool.entity.CustomerTable}.
+ */
+public final class AffordabilityEngine {
+
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    private final MallIndex index;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public AffordabilityEngine(List<Shop> shops) {
+        this(MallIndex.of(shops));
+    }
+
+    public AffordabilityEngine(MallIndex index) {
+        this(index, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public AffordabilityEngine(MallIndex index, ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.index = index;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /** Price of the cheapest basket containing every item the customer wants. */
+    public long basketPrice(Customer customer) {
+        List<Item> wanted = customer.getWantToBuy();
+        if (wanted == null) {
+            return 0;
+        }
+        long total = 0;
+        for (Item item : wanted) {
+            if (item != null && item.getName() != null) {
+                total += index.minPrice(item.getName(), 0);
+            }
+        }
+        return total;
+    }
+
+    /** How much money the customer is missing, or 0 if they can afford their basket. */
+    public long shortfall(Customer customer) {
+        Integer budget = customer.getBudget();
+        return Math.max(0L, basketPrice(customer) - (budget == null ? 0 : budget));
+    }
+
+    /** Shortfall of each customer, aligned with the input list. */
+    public long[] shortfalls(List<Customer> customers) {
+        long[] result = new long[customers.size()];
+        if (result.length <= threshold) {
+            score(customers, result, 0, result.length);
+        } else {
+            pool.invoke(new ScoreTask(customers, result, 0, result.length));
+        }
+        return result;
+    }
+
+    /** Customers whose cheapest basket fits their budget, in input order. */
+    public List<Customer> affordable(List<Customer> customers) {
+        long[] shortfalls = shortfalls(customers);
+        List<Customer> result = new ArrayList<>();
+        for (int i = 0; i < shortfalls.length; i++) {
+            if (shortfalls[i] == 0) {
+                result.add(customers.get(i));
+            }
+        }
+        return result;
+    }
+
+    private void score(List<Customer> customers, long[] result, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result[i] = shortfall(customers.get(i));
+        }
+    }
+
+    private final class ScoreTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Customer> customers;
+        private final long[] result;
+        private final int from;
+        private final int to;
+
+        private ScoreTask(List<Customer> customers, long[] result, int from, int to) {
+            this.customers = customers;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                score(customers, result, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoreTask(customers, result, from, middle), new ScoreTask(customers, result, middle, to));
+        }
+    }
+}
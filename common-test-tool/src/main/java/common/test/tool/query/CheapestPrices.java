@@ -0,0 +1,142 @@
+package common.test.tool.query;
+
+import common.test.tool.entity.Item;
+import common.test.tool.entity.NameDictionary;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cheapest shop price per item name: the catalog side of the joins of a {@link QueryPlan}, built once per run.
+ * <p>
+ * Over a {@link NameDictionary.IndexedMall} the prices sit in an array indexed by name id, so a lookup reads the
+ * item's {@code nameId} instead of hashing and comparing its name. Items without an id, such as ones added after
+ * indexing, are resolved through the dictionary. Any other mall, or an indexed one whose shops sell a name the
+ * dictionary lacks, joins on a hash map of names.
+ */
+abstract class CheapestPrices {
+
+    static CheapestPrices of(OnlineShoppingMall mall) {
+        if (mall instanceof NameDictionary.IndexedMall) {
+            CheapestPrices byId = ById.build((NameDictionary.IndexedMall) mall);
+            if (byId != null) {
+                return byId;
+            }
+        }
+        return ByName.build(mall);
+    }
+
+    /** How a lookup finds an item's price, for {@link QueryPlan#explain(OnlineShoppingMall)}. */
+    abstract String lookup();
+
+    /** The structure built once per run, for {@link QueryPlan#explain(OnlineShoppingMall)}. */
+    abstract String table();
+
+    abstract boolean contains(Item item);
+
+    /** Cheapest price of the item, or 0 if no shop sells it. */
+    abstract int price(Item item);
+
+    private static final class ById extends CheapestPrices {
+
+        private final NameDictionary dictionary;
+        private final int[] prices;
+        private final BitSet onSale;
+
+        private ById(NameDictionary dictionary) {
+            this.dictionary = dictionary;
+            this.prices = new int[dictionary.size()];
+            this.onSale = new BitSet(dictionary.size());
+        }
+
+        /** Returns {@code null} if a shop item has a name the dictionary does not know. */
+        private static ById build(NameDictionary.IndexedMall mall) {
+            ById cheapest = new ById(mall.dictionary());
+            Arrays.fill(cheapest.prices, Integer.MAX_VALUE);
+            for (Shop shop : mall.getShopList()) {
+                if (shop.getItemList() == null) {
+                    continue;
+                }
+                for (Item item : shop.getItemList()) {
+                    int id = cheapest.id(item);
+                    if (id == NameDictionary.NO_ID) {
+                        return null;
+                    }
+                    cheapest.onSale.set(id);
+                    cheapest.prices[id] = Math.min(cheapest.prices[id], item.getPrice());
+                }
+            }
+            return cheapest;
+        }
+
+        @Override
+        String lookup() {
+            return "array lookup by item.nameId";
+        }
+
+        @Override
+        String table() {
+            return "catalog price array indexed by name id";
+        }
+
+        private int id(Item item) {
+            int id = item.getNameId();
+            return id >= 0 && id < prices.length ? id : dictionary.id(item.getName());
+        }
+
+        @Override
+        boolean contains(Item item) {
+            int id = id(item);
+            return id != NameDictionary.NO_ID && onSale.get(id);
+        }
+
+        @Override
+        int price(Item item) {
+            int id = id(item);
+            return id != NameDictionary.NO_ID && onSale.get(id) ? prices[id] : 0;
+        }
+    }
+
+    private static final class ByName extends CheapestPrices {
+
+        private final Map<String, Integer> prices = new HashMap<>();
+
+        private static ByName build(OnlineShoppingMall mall) {
+            ByName cheapest = new ByName();
+            for (Shop shop : mall.getShopList()) {
+                if (shop.getItemList() == null) {
+                    continue;
+                }
+                for (Item item : shop.getItemList()) {
+                    cheapest.prices.merge(item.getName(), item.getPrice(), Math::min);
+                }
+            }
+            return cheapest;
+        }
+
+        @Override
+        String lookup() {
+            return "hash lookup";
+        }
+
+        @Override
+        String table() {
+            return "catalog hash table";
+        }
+
+        @Override
+        boolean contains(Item item) {
+            return prices.containsKey(item.getName());
+        }
+
+        @Override
+        int price(Item item) {
+            Integer price = prices.get(item.getName());
+            return price == null ? 0 : price;
+        }
+    }
+}
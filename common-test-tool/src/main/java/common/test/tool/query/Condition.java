@@ -0,0 +1,105 @@
+package common.test.tool.query;
+
+import java.util.Objects;
+
+/**
+ * A filter of a {@link MallQuery}: a numeric column compared with a constant or another numeric column, or a
+ * text column compared with a string. Conditions are plain data, evaluated inside the query's fused loop without
+ * boxing or a lambda call per row.
+ */
+public final class Condition {
+
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int LE = 3;
+    private static final int GT = 4;
+    private static final int GE = 5;
+    private static final String[] SYMBOLS = {"=", "<>", "<", "<=", ">", ">="};
+
+    final MallColumn<?> left;
+    final MallColumn<Integer> right;
+    private final int op;
+    private final int constant;
+    private final String text;
+
+    private Condition(MallColumn<?> left, int op, MallColumn<Integer> right, int constant, String text) {
+        this.left = left;
+        this.op = op;
+        this.right = right;
+        this.constant = constant;
+        this.text = text;
+    }
+
+    public static Condition equalTo(MallColumn<Integer> column, int value) {
+        return new Condition(column, EQ, null, value, null);
+    }
+
+    public static Condition notEqualTo(MallColumn<Integer> column, int value) {
+        return new Condition(column, NE, null, value, null);
+    }
+
+    public static Condition lessThan(MallColumn<Integer> column, int value) {
+        return new Condition(column, LT, null, value, null);
+    }
+
+    public static Condition atMost(MallColumn<Integer> column, int value) {
+        return new Condition(column, LE, null, value, null);
+    }
+
+    public static Condition greaterThan(MallColumn<Integer> column, int value) {
+        return new Condition(column, GT, null, value, null);
+    }
+
+    public static Condition atLeast(MallColumn<Integer> column, int value) {
+        return new Condition(column, GE, null, value, null);
+    }
+
+    /** {@code column <= other} on the same row, e.g. {@code atMost(BASKET_PRICE, BUDGET)}. */
+    public static Condition atMost(MallColumn<Integer> column, MallColumn<Integer> other) {
+        return new Condition(column, LE, other, 0, null);
+    }
+
+    /** {@code column < other} on the same row. */
+    public static Condition lessThan(MallColumn<Integer> column, MallColumn<Integer> other) {
+        return new Condition(column, LT, other, 0, null);
+    }
+
+    /** Matches rows whose text equals {@code value}; a {@code null} value matches rows without that text. */
+    public static Condition equalTo(MallColumn<String> column, String value) {
+        return new Condition(column, EQ, null, 0, value);
+    }
+
+    /** Matches rows whose text differs from {@code value}; a {@code null} value matches rows that have the text. */
+    public static Condition notEqualTo(MallColumn<String> column, String value) {
+        return new Condition(column, NE, null, 0, value);
+    }
+
+    boolean test(QueryPlan.Row row) {
+        if (!left.numeric) {
+            return Objects.equals(text, row.text(left.id)) == (op == EQ);
+        }
+        long l = row.longValue(left.id);
+        long r = right == null ? constant : row.longValue(right.id);
+        switch (op) {
+            case EQ:
+                return l == r;
+            case NE:
+                return l != r;
+            case LT:
+                return l < r;
+            case LE:
+                return l <= r;
+            case GT:
+                return l > r;
+            default:
+                return l >= r;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String value = !left.numeric ? (text == null ? "null" : '"' + text + '"') : right != null ? right.toString() : String.valueOf(constant);
+        return left + " " + SYMBOLS[op] + " " + value;
+    }
+}
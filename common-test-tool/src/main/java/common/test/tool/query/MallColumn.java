@@ -0,0 +1,55 @@
+package common.test.tool.query;
+
+/**
+ * A column a {@link MallQuery} can filter, project, group, aggregate or order on.
+ * <p>
+ * Customer columns are available on customer and wanted-item queries, item columns on item queries and
+ * {@link #SHOP_NAME} on shop-item queries only. {@link #BASKET_PRICE} and {@link #CHEAPEST_PRICE} are produced by
+ * the join on item name, see {@link MallQuery#withBasketPrice()} and {@link MallQuery#withCheapestPrice()}.
+ */
+public final class MallColumn<T> {
+
+    static final int CUSTOMER_NAME_ID = 0;
+    static final int AGE_ID = 1;
+    static final int BUDGET_ID = 2;
+    static final int BASKET_PRICE_ID = 3;
+    static final int ITEM_NAME_ID = 4;
+    static final int PRICE_ID = 5;
+    static final int SHOP_NAME_ID = 6;
+    static final int CHEAPEST_PRICE_ID = 7;
+
+    public static final MallColumn<String> CUSTOMER_NAME = new MallColumn<>(CUSTOMER_NAME_ID, "customer.name", false);
+    public static final MallColumn<Integer> AGE = new MallColumn<>(AGE_ID, "customer.age", true);
+    public static final MallColumn<Integer> BUDGET = new MallColumn<>(BUDGET_ID, "customer.budget", true);
+    /**
+     * Cost of the customer's wish list at the cheapest prices on sale, items not on sale counted as 0. Summed in
+     * {@code long}: conditions and sums see the exact cost, projections, orderings, groupings and min/max see it
+     * saturated at {@link Integer#MAX_VALUE}.
+     */
+    public static final MallColumn<Integer> BASKET_PRICE = new MallColumn<>(BASKET_PRICE_ID, "basketPrice", true);
+    public static final MallColumn<String> ITEM_NAME = new MallColumn<>(ITEM_NAME_ID, "item.name", false);
+    public static final MallColumn<Integer> PRICE = new MallColumn<>(PRICE_ID, "item.price", true);
+    public static final MallColumn<String> SHOP_NAME = new MallColumn<>(SHOP_NAME_ID, "shop.name", false);
+    /** Cheapest price any shop asks for the item, or 0 if it is not on sale. */
+    public static final MallColumn<Integer> CHEAPEST_PRICE =
+        new MallColumn<>(CHEAPEST_PRICE_ID, "cheapestPrice", true);
+
+    final int id;
+    final boolean numeric;
+    private final String name;
+
+    private MallColumn(int id, String name, boolean numeric) {
+        this.id = id;
+        this.name = name;
+        this.numeric = numeric;
+    }
+
+    boolean isCustomerColumn() {
+        return id <= BASKET_PRICE_ID;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
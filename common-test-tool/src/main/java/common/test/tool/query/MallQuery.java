@@ -0,0 +1,224 @@
+package common.test.tool.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
+/**
+ * Declarative query over the customers, shop items or wanted items of a mall.
+ * <p>
+ * A query names a source, an optional join with the shop catalog on item name, filters, and then one terminal
+ * operation: a projection (with optional order, distinct and limit), an aggregate or a grouping. The terminal
+ * operation returns a {@link QueryPlan}, which runs the whole query as one loop over the mall's lists with the
+ * join answered from a hash table built once per run, or from an array indexed by name id when the mall was
+ * indexed by {@link common.test.tool.entity.NameDictionary#index}: no intermediate streams or collections, no
+ * lambda call per stage and no boxing of numeric columns.
+ * {@link QueryPlan#explain(common.test.tool.entity.OnlineShoppingMall)} shows the plan chosen for a mall.
+ * <pre>
+ * List&lt;String&gt; names = MallQuery.customers()
+ *     .withBasketPrice()
+ *     .where(Condition.atMost(MallColumn.BASKET_PRICE, MallColumn.BUDGET))
+ *     .select(MallColumn.CUSTOMER_NAME)
+ *     .run(mall);
+ * </pre>
+ * Queries are mutable builders; plans are immutable and may be run repeatedly and concurrently.
+ */
+public final class MallQuery {
+
+    enum Source {
+        CUSTOMERS("customers", "for customer in mall.customerList"),
+        SHOP_ITEMS("shop items", "for shop in mall.shopList, item in shop.itemList"),
+        WANTED_ITEMS("wanted items", "for customer in mall.customerList, item in customer.wantToBuy");
+
+        final String title;
+        final String loop;
+
+        Source(String title, String loop) {
+            this.title = title;
+            this.loop = loop;
+        }
+    }
+
+    enum Join {
+        NONE, ON_SALE, NOT_ON_SALE, CHEAPEST_PRICE, BASKET_PRICE
+    }
+
+    final Source source;
+    Join join = Join.NONE;
+    final List<Condition> conditions = new ArrayList<>();
+    MallColumn<?> orderColumn;
+    boolean descending;
+    boolean distinct;
+    int limit = -1;
+
+    private MallQuery(Source source) {
+        this.source = source;
+    }
+
+    public static MallQuery customers() {
+        return new MallQuery(Source.CUSTOMERS);
+    }
+
+    /** One row per item of every shop. */
+    public static MallQuery shopItems() {
+        return new MallQuery(Source.SHOP_ITEMS);
+    }
+
+    /** One row per item on every customer's wish list, with the customer's columns. */
+    public static MallQuery wantedItems() {
+        return new MallQuery(Source.WANTED_ITEMS);
+    }
+
+    /** Keeps item rows whose name some shop sells (semi-join on item name). */
+    public MallQuery onSale() {
+        return join(Join.ON_SALE, Source.SHOP_ITEMS, Source.WANTED_ITEMS);
+    }
+
+    /** Keeps item rows whose name no shop sells (anti-join on item name). */
+    public MallQuery notOnSale() {
+        return join(Join.NOT_ON_SALE, Source.SHOP_ITEMS, Source.WANTED_ITEMS);
+    }
+
+    /** Adds {@link MallColumn#CHEAPEST_PRICE} to item rows (left join on item name). */
+    public MallQuery withCheapestPrice() {
+        return join(Join.CHEAPEST_PRICE, Source.SHOP_ITEMS, Source.WANTED_ITEMS);
+    }
+
+    /** Adds {@link MallColumn#BASKET_PRICE} to customer rows. */
+    public MallQuery withBasketPrice() {
+        return join(Join.BASKET_PRICE, Source.CUSTOMERS, Source.CUSTOMERS);
+    }
+
+    public MallQuery where(Condition condition) {
+        check(condition.left);
+        if (condition.right != null) {
+            check(condition.right);
+        }
+        conditions.add(condition);
+        return this;
+    }
+
+    /** Orders a {@link #select} ascending; ties keep the source order. */
+    public MallQuery orderBy(MallColumn<?> column) {
+        return order(column, false);
+    }
+
+    /** Orders a {@link #select} descending; ties keep the source order. */
+    public MallQuery orderByDescending(MallColumn<?> column) {
+        return order(column, true);
+    }
+
+    /** Drops repeated values from a {@link #select}, keeping the first in order. */
+    public MallQuery distinct() {
+        distinct = true;
+        return this;
+    }
+
+    /** Returns at most {@code limit} values from a {@link #select}; stops the scan early when unordered. */
+    public MallQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public <T> QueryPlan<List<T>> select(MallColumn<T> column) {
+        check(column);
+        return new QueryPlan<>(this, QueryPlan.Kind.SELECT, column, null);
+    }
+
+    public QueryPlan<Long> count() {
+        return aggregate(QueryPlan.Kind.COUNT, null);
+    }
+
+    /** {@code true} if any row passes the filters; the scan stops at the first. */
+    public QueryPlan<Boolean> exists() {
+        return aggregate(QueryPlan.Kind.EXISTS, null);
+    }
+
+    public QueryPlan<Long> sum(MallColumn<Integer> column) {
+        return aggregate(QueryPlan.Kind.SUM, column);
+    }
+
+    public QueryPlan<OptionalInt> min(MallColumn<Integer> column) {
+        return aggregate(QueryPlan.Kind.MIN, column);
+    }
+
+    public QueryPlan<OptionalInt> max(MallColumn<Integer> column) {
+        return aggregate(QueryPlan.Kind.MAX, column);
+    }
+
+    public QueryPlan<OptionalDouble> average(MallColumn<Integer> column) {
+        return aggregate(QueryPlan.Kind.AVERAGE, column);
+    }
+
+    /** Number of rows per value of {@code key}, like {@code groupingBy(key, counting())}. */
+    public <K> QueryPlan<Map<K, Long>> countBy(MallColumn<K> key) {
+        check(key);
+        return aggregate(QueryPlan.Kind.COUNT_BY, key, null);
+    }
+
+    /** Sum of {@code value} per value of {@code key}, like {@code groupingBy(key, summingLong(value))}. */
+    public <K> QueryPlan<Map<K, Long>> sumBy(MallColumn<K> key, MallColumn<Integer> value) {
+        check(key);
+        return aggregate(QueryPlan.Kind.SUM_BY, key, value);
+    }
+
+    private <R> QueryPlan<R> aggregate(QueryPlan.Kind kind, MallColumn<Integer> value) {
+        return aggregate(kind, null, value);
+    }
+
+    private <R> QueryPlan<R> aggregate(QueryPlan.Kind kind, MallColumn<?> key, MallColumn<Integer> value) {
+        if (orderColumn != null || distinct || limit >= 0) {
+            throw new IllegalStateException("orderBy, distinct and limit apply to select only");
+        }
+        if (value != null) {
+            check(value);
+        }
+        return new QueryPlan<>(this, kind, key, value);
+    }
+
+    private MallQuery order(MallColumn<?> column, boolean descending) {
+        check(column);
+        this.orderColumn = column;
+        this.descending = descending;
+        return this;
+    }
+
+    private MallQuery join(Join join, Source first, Source second) {
+        if (source != first && source != second) {
+            throw new IllegalStateException(join + " is not available on " + source.title);
+        }
+        if (this.join != Join.NONE && this.join != join) {
+            throw new IllegalStateException("Query already joins " + this.join);
+        }
+        this.join = join;
+        return this;
+    }
+
+    /** Rejects columns the rows of this query do not have. */
+    private void check(MallColumn<?> column) {
+        boolean available;
+        switch (column.id) {
+            case MallColumn.BASKET_PRICE_ID:
+                available = join == Join.BASKET_PRICE;
+                break;
+            case MallColumn.CHEAPEST_PRICE_ID:
+                available = join == Join.CHEAPEST_PRICE;
+                break;
+            case MallColumn.SHOP_NAME_ID:
+                available = source == Source.SHOP_ITEMS;
+                break;
+            default:
+                available = column.isCustomerColumn() ? source != Source.SHOP_ITEMS : source != Source.CUSTOMERS;
+        }
+        if (!available) {
+            String hint = column.id == MallColumn.BASKET_PRICE_ID ? " without withBasketPrice()"
+                : column.id == MallColumn.CHEAPEST_PRICE_ID ? " without withCheapestPrice()" : "";
+            throw new IllegalArgumentException("Column " + column + " is not available on " + source.title + hint);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package common.test.tool.query;
+
+import common.test.tool.dataset.MallSnapshot;
+import common.test.tool.entity.MutableMall;
+import common.test.tool.entity.OnlineShoppingMall;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caches query results by query identity and the version of the data they were computed from.
+ * <p>
+ * A lookup with the version the entry was stored under is a hit; a lookup with any other version replaces the
+ * entry, so a mutation that bumps the version ({@link MutableMall#getVersion()}, a reload counted by
+ * {@link MallSnapshot#getLoadCount()}) invalidates every result computed before it. Entries are evicted least
+ * recently used first once the total weight exceeds the bound; by default each entry weighs 1, which bounds
+ * the entry count.
+ * <p>
+ * Thread-safe. Loaders run outside the lock, so two threads missing on the same key at once may both load.
+ */
+public final class QueryCache {
+
+    private final long maxWeight;
+    private final ToLongFunction<Object> weigher;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long stale;
+    private long evictions;
+    private long totalLoadNanos;
+
+    /** A cache of at most {@code maxEntries} results. */
+    public QueryCache(long maxEntries) {
+        this(maxEntries, value -> 1L);
+    }
+
+    /** A cache whose results weigh at most {@code maxWeight} in total, each weighed once when stored. */
+    public QueryCache(long maxWeight, ToLongFunction<Object> weigher) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /** The result of {@code plan} over the current contents of {@code mall}, computed at most once per version. */
+    public <R> R get(QueryPlan<R> plan, MutableMall mall) {
+        return get(new SourceKey(plan, mall), mall.getVersion(), () -> mall.read(plan::run));
+    }
+
+    /**
+     * The result of {@code plan} over the snapshot, computed at most once per load of the file. The file is
+     * checked for changes first, so a rewritten file is reloaded and misses.
+     */
+    public <R> R get(QueryPlan<R> plan, MallSnapshot snapshot) {
+        OnlineShoppingMall mall;
+        long version;
+        // a load counts after its mall is published: if the count is unchanged around get(), the mall is at least
+        // as new as the version, so a race costs one extra miss but never stores an old result as current
+        do {
+            version = snapshot.getLoadCount();
+            mall = snapshot.get();
+        } while (snapshot.getLoadCount() != version);
+        OnlineShoppingMall current = mall;
+        return get(new SourceKey(plan, snapshot), version, () -> plan.run(current));
+    }
+
+    /**
+     * The value cached for {@code query} at {@code version}, or the loader's result, which is then cached.
+     * {@code query} is compared with {@code equals}; a loader returning {@code null} is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(Object query, long version, Supplier<? extends R> loader) {
+        synchronized (this) {
+            Entry entry = entries.get(query);
+            if (entry != null && entry.version == version) {
+                hits++;
+                return (R) entry.value;
+            }
+            misses++;
+            if (entry != null) {
+                stale++;
+            }
+        }
+        long start = System.nanoTime();
+        R value = loader.get();
+        long loadNanos = System.nanoTime() - start;
+        long valueWeight = value == null ? 0 : weigher.applyAsLong(value);
+        synchronized (this) {
+            totalLoadNanos += loadNanos;
+            if (value == null || valueWeight > maxWeight) {
+                return value;
+            }
+            Entry current = entries.get(query);
+            if (current != null && current.version > version) {
+                // a newer version was stored meanwhile, keep it
+                return value;
+            }
+            if (current != null) {
+                weight -= current.weight;
+            }
+            entries.put(query, new Entry(version, value, valueWeight));
+            weight += valueWeight;
+            evict();
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(Object query) {
+        Entry removed = entries.remove(query);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, stale, evictions, totalLoadNanos);
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private final Object value;
+        private final long weight;
+
+        private Entry(long version, Object value, long weight) {
+            this.version = version;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /** A plan run against one particular data source, compared by identity of both. */
+    private static final class SourceKey {
+
+        private final Object plan;
+        private final Object source;
+
+        private SourceKey(Object plan, Object source) {
+            this.plan = plan;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SourceKey)) {
+                return false;
+            }
+            SourceKey other = (SourceKey) o;
+            return plan == other.plan && source == other.source;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(plan) + System.identityHashCode(source);
+        }
+    }
+
+    /** Counters since the cache was created. A stale lookup found an entry of another version. */
+    public static final class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long stale;
+        private final long evictions;
+        private final long totalLoadNanos;
+
+        private Stats(long hits, long misses, long stale, long evictions, long totalLoadNanos) {
+            this.hits = hits;
+            this.misses = misses;
+            this.stale = stale;
+            this.evictions = evictions;
+            this.totalLoadNanos = totalLoadNanos;
+        }
+
+        public long getHitCount() {
+            return hits;
+        }
+
+        public long getMissCount() {
+            return misses;
+        }
+
+        public long getStaleCount() {
+            return stale;
+        }
+
+        public long getEvictionCount() {
+            return evictions;
+        }
+
+        public long getTotalLoadNanos() {
+            return totalLoadNanos;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        public double getAverageLoadNanos() {
+            return misses == 0 ? 0.0 : (double) totalLoadNanos / misses;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", stale=" + stale + ", evictions=" + evictions
+                + ", totalLoadNanos=" + totalLoadNanos + "}";
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package common.test.tool.query;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs queries, typically parallel stream pipelines, in a named, size-limited {@link ForkJoinPool} instead of the
+ * JVM common pool.
+ * <p>
+ * A parallel stream executes in the pool of the thread that starts its terminal operation, so a pipeline passed
+ * to {@link #execute(Supplier)} unchanged runs on this executor's workers only. Heavy analytical queries can be
+ * given their own executor and so be kept away from latency-sensitive ones. All queries share one pool with a
+ * parallelism of {@link #getMaxParallelism()}, so the executor's worker threads stay within that limit however many
+ * different parallelism levels its queries ask for.
+ * <p>
+ * A parallel stream cannot be told to use fewer workers of its pool, so a query's parallelism is a reservation:
+ * it waits until that many of the executor's workers are unreserved and holds them until it completes. Queries
+ * run side by side only while their reservations add up to at most the pool's size; one that has the pool to
+ * itself may still spread over all of its idle workers. A query must not run another query on the same executor,
+ * which could wait for workers the outer query holds.
+ * <p>
+ * {@link #measure(Supplier)} also reports wall time, worker CPU time, steals and the tasks queued ahead of the
+ * query. Steals and CPU time are pool-wide deltas, exact only while the query has the pool to itself. CPU time is
+ * summed over the workers alive when it is read, so the time of a worker that terminates during the query, e.g.
+ * after idling, is lost and the delta undercounts.
+ * <p>
+ * After {@link #close()} the pool is shut down and new queries fail with {@link IllegalStateException}; queries
+ * already running complete.
+ */
+public final class QueryExecutor implements AutoCloseable {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String name;
+    private final int maxParallelism;
+    private final ForkJoinPool pool;
+    private final Semaphore reservations;
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong totalWallNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    public QueryExecutor(String name, int maxParallelism) {
+        if (maxParallelism < 1 || maxParallelism > 0x7fff) {
+            throw new IllegalArgumentException("parallelism out of range: " + maxParallelism);
+        }
+        this.name = name;
+        this.maxParallelism = maxParallelism;
+        this.pool = new ForkJoinPool(maxParallelism, this::newThread, null, false);
+        this.reservations = new Semaphore(maxParallelism, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    /** Number of queries executed so far. */
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getTotalWallNanos() {
+        return totalWallNanos.get();
+    }
+
+    /** Runs the query with the executor's full parallelism and returns its result. */
+    public <T> T execute(Supplier<T> query) {
+        return execute(maxParallelism, query);
+    }
+
+    /**
+     * Runs the query with {@code parallelism} workers reserved, capped at {@link #getMaxParallelism()}, waiting
+     * for them if other queries hold them.
+     */
+    public <T> T execute(int parallelism, Supplier<T> query) {
+        return measure(parallelism, query).getValue();
+    }
+
+    public <T> QueryResult<T> measure(Supplier<T> query) {
+        return measure(maxParallelism, query);
+    }
+
+    /** Runs the query like {@link #execute(int, Supplier)} and returns its result with the pool metrics. */
+    public <T> QueryResult<T> measure(int parallelism, Supplier<T> query) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        checkOpen();
+        int reserved = Math.min(parallelism, maxParallelism);
+        reservations.acquireUninterruptibly(reserved);
+        try {
+            long queued = pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+            long steals = pool.getStealCount();
+            long cpu = cpuNanos();
+            long start = System.nanoTime();
+            ForkJoinTask<T> task;
+            try {
+                task = pool.submit(query::get);
+            } catch (RejectedExecutionException e) {
+                checkOpen();
+                throw e;
+            }
+            T value = task.join();
+            long wall = System.nanoTime() - start;
+            queries.incrementAndGet();
+            totalWallNanos.addAndGet(wall);
+            long cpuDelta = cpu < 0 ? -1 : Math.max(0L, cpuNanos() - cpu);
+            return new QueryResult<>(value, new QueryStats(reserved, wall, cpuDelta, pool.getStealCount() - steals,
+                queued));
+        } finally {
+            reservations.release(reserved);
+        }
+    }
+
+    /** Shuts the pool down; queries already running complete. */
+    @Override
+    public void close() {
+        closed = true;
+        pool.shutdown();
+    }
+
+    /** {@code true} once closed with the pool shut down. */
+    boolean isShutdown() {
+        return closed && pool.isShutdown();
+    }
+
+    /** Worker threads alive now. */
+    int workerCount() {
+        return workers.size();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Executor " + name + " is closed");
+        }
+    }
+
+    private ForkJoinWorkerThread newThread(ForkJoinPool owner) {
+        ForkJoinWorkerThread thread = new ForkJoinWorkerThread(owner) {
+            @Override
+            protected void onTermination(Throwable exception) {
+                workers.remove(this);
+                super.onTermination(exception);
+            }
+        };
+        thread.setName(name + "-p" + maxParallelism + "-worker-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        workers.add(thread);
+        return thread;
+    }
+
+    /**
+     * CPU time of the workers alive now, or -1 if the JVM does not measure thread CPU time. Terminated workers
+     * are not included.
+     */
+    private long cpuNanos() {
+        if (!THREADS.isThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (Thread worker : workers) {
+            long time = THREADS.getThreadCpuTime(worker.getId());
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    /** A query result together with the metrics of its run. */
+    public static final class QueryResult<T> {
+
+        private final T value;
+        private final QueryStats stats;
+
+        private QueryResult(T value, QueryStats stats) {
+            this.value = value;
+            this.stats = stats;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public QueryStats getStats() {
+            return stats;
+        }
+    }
+
+    public static final class QueryStats {
+
+        private final int parallelism;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long stealCount;
+        private final long queuedTasks;
+
+        private QueryStats(int parallelism, long wallNanos, long cpuNanos, long stealCount, long queuedTasks) {
+            this.parallelism = parallelism;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.stealCount = stealCount;
+            this.queuedTasks = queuedTasks;
+        }
+
+        /** Workers reserved for the query. */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * Worker CPU time spent during the query, or -1 if not measurable. Only workers alive at the end of the
+         * query are counted, so this may undercount if workers terminated meanwhile.
+         */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getStealCount() {
+            return stealCount;
+        }
+
+        /** Tasks and submissions already queued in the pool when the query was submitted. */
+        public long getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        @Override
+        public String toString() {
+            return "QueryStats{parallelism=" + parallelism + ", wallNanos=" + wallNanos + ", cpuNanos=" + cpuNanos
+                + ", stealCount=" + stealCount + ", queuedTasks=" + queuedTasks + "}";
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package common.test.tool.query;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+import common.test.tool.util.IntHistogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * A compiled {@link MallQuery}: the source loop, the join, the filters and the terminal operation fused into one
+ * pass over the mall. Create plans through the terminal operations of {@link MallQuery}.
+ */
+public final class QueryPlan<R> {
+
+    enum Kind {
+        SELECT, COUNT, EXISTS, SUM, MIN, MAX, AVERAGE, COUNT_BY, SUM_BY
+    }
+
+    private final MallQuery.Source source;
+    private final MallQuery.Join join;
+    private final Condition[] conditions;
+    private final MallColumn<?> orderColumn;
+    private final boolean descending;
+    private final boolean distinct;
+    private final int limit;
+    private final Kind kind;
+    private final MallColumn<?> key;
+    private final MallColumn<Integer> value;
+
+    QueryPlan(MallQuery query, Kind kind, MallColumn<?> key, MallColumn<Integer> value) {
+        this.source = query.source;
+        this.join = query.join;
+        this.conditions = query.conditions.toArray(new Condition[0]);
+        this.orderColumn = query.orderColumn;
+        this.descending = query.descending;
+        this.distinct = query.distinct;
+        this.limit = query.limit;
+        this.kind = kind;
+        this.key = key;
+        this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public R run(OnlineShoppingMall mall) {
+        Sink sink = newSink();
+        if (limit != 0) {
+            scan(mall, join == MallQuery.Join.NONE ? null : CheapestPrices.of(mall), sink);
+        }
+        return (R) sink.result();
+    }
+
+    /**
+     * The plan, one step per line, in the order the fused loop applies them. The join's lookup depends on the mall
+     * it runs over, so it is left open; {@link #explain(OnlineShoppingMall)} names the one chosen.
+     */
+    public String explain() {
+        return explain(null);
+    }
+
+    /** The plan as {@link #run} executes it over {@code mall}, with the join strategy chosen for that mall. */
+    public String explain(OnlineShoppingMall mall) {
+        String lookup = "hash lookup, or array lookup by item.nameId over an indexed mall";
+        String table = "catalog hash table or price array";
+        if (mall != null && join != MallQuery.Join.NONE) {
+            CheapestPrices cheapest = CheapestPrices.of(mall);
+            lookup = cheapest.lookup();
+            table = cheapest.table();
+        }
+        StringBuilder plan = new StringBuilder();
+        plan.append(describeTerminal()).append('\n');
+        plan.append("  scan     ").append(source.title).append(": ").append(source.loop).append('\n');
+        if (join != MallQuery.Join.NONE) {
+            plan.append("  join     ").append(describeJoin(lookup)).append('\n');
+        }
+        for (Condition condition : conditions) {
+            plan.append("  filter   ").append(condition).append('\n');
+        }
+        if (orderColumn != null) {
+            plan.append("  order    ").append(orderColumn).append(descending ? " desc" : " asc")
+                .append(orderColumn.numeric ? " (sort of packed primitive keys)" : " (stable index sort)").append('\n');
+        }
+        if (distinct) {
+            plan.append("  distinct hash set of seen values").append('\n');
+        }
+        if (limit >= 0) {
+            plan.append("  limit    ").append(limit).append(orderColumn == null ? " (stops the scan)" : " (after sort)")
+                .append('\n');
+        }
+        plan.append("  1 fused loop");
+        if (join != MallQuery.Join.NONE) {
+            plan.append(", ").append(table).append(" built once per run");
+        }
+        return plan.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    private String describeTerminal() {
+        switch (kind) {
+            case SELECT:
+                return "select " + key + " into list";
+            case COUNT:
+                return "count";
+            case EXISTS:
+                return "exists (stops at the first match)";
+            case SUM:
+            case MIN:
+            case MAX:
+            case AVERAGE:
+                return kind.name().toLowerCase(Locale.ROOT) + "(" + value + ") into primitive accumulator";
+            case COUNT_BY:
+                return "group by " + key + " count " + groupContainer();
+            default:
+                return "group by " + key + " sum(" + value + ") " + groupContainer();
+        }
+    }
+
+    private String groupContainer() {
+        return key.numeric ? "into int histogram" : "into hash map of long counters";
+    }
+
+    private String describeJoin(String lookup) {
+        switch (join) {
+            case ON_SALE:
+                return "semi-join shop items on item.name (" + lookup + ")";
+            case NOT_ON_SALE:
+                return "anti-join shop items on item.name (" + lookup + ")";
+            case CHEAPEST_PRICE:
+                return "left join cheapest shop price on item.name (" + lookup + ", 0 if absent)";
+            default:
+                return "nested loop over customer.wantToBuy summing cheapest shop price (" + lookup + ", 0 if absent)";
+        }
+    }
+
+    private void scan(OnlineShoppingMall mall, CheapestPrices cheapest, Sink sink) {
+        Row row = new Row();
+        switch (source) {
+            case CUSTOMERS:
+                for (Customer customer : mall.getCustomerList()) {
+                    row.customer = customer;
+                    if (join == MallQuery.Join.BASKET_PRICE) {
+                        row.derived = basketPrice(customer, cheapest);
+                    }
+                    if (matches(row) && !sink.accept(row)) {
+                        return;
+                    }
+                }
+                return;
+            case SHOP_ITEMS:
+                for (Shop shop : mall.getShopList()) {
+                    if (shop.getItemList() == null) {
+                        continue;
+                    }
+                    row.shop = shop;
+                    for (Item item : shop.getItemList()) {
+                        row.item = item;
+                        if (joins(row, cheapest) && matches(row) && !sink.accept(row)) {
+                            return;
+                        }
+                    }
+                }
+                return;
+            default:
+                for (Customer customer : mall.getCustomerList()) {
+                    if (customer.getWantToBuy() == null) {
+                        continue;
+                    }
+                    row.customer = customer;
+                    for (Item item : customer.getWantToBuy()) {
+                        row.item = item;
+                        if (joins(row, cheapest) && matches(row) && !sink.accept(row)) {
+                            return;
+                        }
+                    }
+                }
+        }
+    }
+
+    private static long basketPrice(Customer customer, CheapestPrices cheapest) {
+        long total = 0;
+        if (customer.getWantToBuy() != null) {
+            for (Item item : customer.getWantToBuy()) {
+                total += cheapest.price(item);
+            }
+        }
+        return total;
+    }
+
+    private boolean joins(Row row, CheapestPrices cheapest) {
+        switch (join) {
+            case NONE:
+                return true;
+            case ON_SALE:
+                return cheapest.contains(row.item);
+            case NOT_ON_SALE:
+                return !cheapest.contains(row.item);
+            default:
+                row.derived = cheapest.price(row.item);
+                return true;
+        }
+    }
+
+    private boolean matches(Row row) {
+        for (Condition condition : conditions) {
+            if (!condition.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Sink newSink() {
+        switch (kind) {
+            case SELECT:
+                return orderColumn == null ? new SelectSink(key.id) : new OrderedSelectSink(key.id);
+            case COUNT:
+                return new CountSink();
+            case EXISTS:
+                return new ExistsSink();
+            case SUM:
+            case AVERAGE:
+                return new SumSink(value.id, kind == Kind.AVERAGE);
+            case MIN:
+            case MAX:
+                return new ExtremeSink(value.id, kind == Kind.MAX);
+            default:
+                int valueId = kind == Kind.SUM_BY ? value.id : -1;
+                return key.numeric ? new HistogramSink(key.id, valueId) : new GroupSink(key.id, valueId);
+        }
+    }
+
+    /** The current row of the fused loop; only the fields of the query's source are set. */
+    static final class Row {
+
+        private Customer customer;
+        private Shop shop;
+        private Item item;
+        private long derived;
+
+        /** The numeric column; a derived price beyond the int range is saturated. */
+        int intValue(int column) {
+            switch (column) {
+                case MallColumn.AGE_ID:
+                    return customer.getAge();
+                case MallColumn.BUDGET_ID:
+                    return customer.getBudget();
+                case MallColumn.PRICE_ID:
+                    return item.getPrice();
+                case MallColumn.BASKET_PRICE_ID:
+                case MallColumn.CHEAPEST_PRICE_ID:
+                    return saturated(derived);
+                default:
+                    throw new IllegalArgumentException("Not a numeric column: " + column);
+            }
+        }
+
+        /** The numeric column without saturation, for comparisons and sums. */
+        long longValue(int column) {
+            return column == MallColumn.BASKET_PRICE_ID || column == MallColumn.CHEAPEST_PRICE_ID
+                ? derived : intValue(column);
+        }
+
+        private static int saturated(long value) {
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+        }
+
+        String text(int column) {
+            switch (column) {
+                case MallColumn.CUSTOMER_NAME_ID:
+                    return customer.getName();
+                case MallColumn.ITEM_NAME_ID:
+                    return item.getName();
+                case MallColumn.SHOP_NAME_ID:
+                    return shop.getName();
+                default:
+                    throw new IllegalArgumentException("Not a text column: " + column);
+            }
+        }
+
+        /** The column value as an object; entity fields are returned as stored, without boxing again. */
+        Object value(int column) {
+            switch (column) {
+                case MallColumn.AGE_ID:
+                    return customer.getAge();
+                case MallColumn.BUDGET_ID:
+                    return customer.getBudget();
+                case MallColumn.PRICE_ID:
+                    return item.getPrice();
+                case MallColumn.BASKET_PRICE_ID:
+                case MallColumn.CHEAPEST_PRICE_ID:
+                    return saturated(derived);
+                default:
+                    return text(column);
+            }
+        }
+    }
+
+    private abstract static class Sink {
+
+        /** Returns {@code false} to stop the scan. */
+        abstract boolean accept(Row row);
+
+        abstract Object result();
+    }
+
+    private final class SelectSink extends Sink {
+
+        private final int column;
+        private final List<Object> values = new ArrayList<>();
+        private final Set<Object> seen = distinct ? new HashSet<>() : null;
+
+        private SelectSink(int column) {
+            this.column = column;
+        }
+
+        @Override
+        boolean accept(Row row) {
+            Object selected = row.value(column);
+            if (seen == null || seen.add(selected)) {
+                values.add(selected);
+            }
+            return limit < 0 || values.size() < limit;
+        }
+
+        @Override
+        Object result() {
+            return values;
+        }
+    }
+
+    /** Buffers selected values with their sort keys; sorts once after the scan. */
+    private final class OrderedSelectSink extends Sink {
+
+        private final int column;
+        private final List<Object> values = new ArrayList<>();
+        private final List<Object> textKeys = orderColumn.numeric ? null : new ArrayList<>();
+        private long[] intKeys = orderColumn.numeric ? new long[16] : null;
+
+        private OrderedSelectSink(int column) {
+            this.column = column;
+        }
+
+        @Override
+        boolean accept(Row row) {
+            int index = values.size();
+            values.add(row.value(column));
+            if (intKeys == null) {
+                textKeys.add(row.text(orderColumn.id));
+                return true;
+            }
+            if (index == intKeys.length) {
+                intKeys = Arrays.copyOf(intKeys, index * 2);
+            }
+            // sort key in the high half, encounter index in the low half: one primitive sort, stable on ties
+            int sortKey = row.intValue(orderColumn.id);
+            intKeys[index] = (long) (descending ? ~sortKey : sortKey) << 32 | index;
+            return true;
+        }
+
+        @Override
+        Object result() {
+            int size = values.size();
+            int[] order = new int[size];
+            if (intKeys != null) {
+                long[] keys = Arrays.copyOf(intKeys, size);
+                Arrays.sort(keys);
+                for (int i = 0; i < size; i++) {
+                    order[i] = (int) keys[i];
+                }
+            } else {
+                Integer[] indices = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    indices[i] = i;
+                }
+                Arrays.sort(indices, (a, b) -> {
+                    int c = ((String) textKeys.get(a)).compareTo((String) textKeys.get(b));
+                    return descending ? -c : c;
+                });
+                for (int i = 0; i < size; i++) {
+                    order[i] = indices[i];
+                }
+            }
+            int max = limit < 0 ? size : limit;
+            List<Object> result = new ArrayList<>(Math.min(size, max));
+            Set<Object> seen = distinct ? new HashSet<>() : null;
+            for (int i = 0; i < size && result.size() < max; i++) {
+                Object selected = values.get(order[i]);
+                if (seen == null || seen.add(selected)) {
+                    result.add(selected);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class CountSink extends Sink {
+
+        private long count;
+
+        @Override
+        boolean accept(Row row) {
+            count++;
+            return true;
+        }
+
+        @Override
+        Object result() {
+            return count;
+        }
+    }
+
+    private static final class ExistsSink extends Sink {
+
+        private boolean found;
+
+        @Override
+        boolean accept(Row row) {
+            found = true;
+            return false;
+        }
+
+        @Override
+        Object result() {
+            return found;
+        }
+    }
+
+    private static final class SumSink extends Sink {
+
+        private final int column;
+        private final boolean average;
+        private long sum;
+        private long count;
+
+        private SumSink(int column, boolean average) {
+            this.column = column;
+            this.average = average;
+        }
+
+        @Override
+        boolean accept(Row row) {
+            sum += row.longValue(column);
+            count++;
+            return true;
+        }
+
+        @Override
+        Object result() {
+            if (!average) {
+                return sum;
+            }
+            return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum / count);
+        }
+    }
+
+    private static final class ExtremeSink extends Sink {
+
+        private final int column;
+        private final boolean max;
+        private boolean any;
+        private int extreme;
+
+        private ExtremeSink(int column, boolean max) {
+            this.column = column;
+            this.max = max;
+        }
+
+        @Override
+        boolean accept(Row row) {
+            int candidate = row.intValue(column);
+            if (!any || (max ? candidate > extreme : candidate < extreme)) {
+                extreme = candidate;
+                any = true;
+            }
+            return true;
+        }
+
+        @Override
+        Object result() {
+            return any ? OptionalInt.of(extreme) : OptionalInt.empty();
+        }
+    }
+
+    /** Groups on a numeric key; {@code value} is -1 for counting. */
+    private static final class HistogramSink extends Sink {
+
+        private final int key;
+        private final int value;
+        private final IntHistogram histogram = new IntHistogram();
+
+        private HistogramSink(int key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        boolean accept(Row row) {
+            histogram.add(row.intValue(key), value < 0 ? 1L : row.longValue(value));
+            return true;
+        }
+
+        @Override
+        Object result() {
+            return histogram.asMap();
+        }
+    }
+
+    /** Groups on a text key with one mutable counter per group; {@code value} is -1 for counting. */
+    private static final class GroupSink extends Sink {
+
+        private final int key;
+        private final int value;
+        private final Map<String, long[]> groups = new HashMap<>();
+
+        private GroupSink(int key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        boolean accept(Row row) {
+            long[] total = groups.computeIfAbsent(row.text(key), name -> new long[1]);
+            total[0] += value < 0 ? 1L : row.longValue(value);
+            return true;
+        }
+
+        @Override
+        Object result() {
+            Map<String, Long> result = new HashMap<>(groups.size() * 2);
+            groups.forEach((name, total) -> result.put(name, total[0]));
+            return Collections.unmodifiableMap(result);
+        }
+    }
+}
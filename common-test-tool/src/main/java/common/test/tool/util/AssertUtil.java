@@ -1,8 +1,163 @@
 package common.test.tool.util;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
 public class AssertUtil {
 
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int ALIGNMENT = 8;
+
     public static <T> boolean isLambda(T e) {
         return e.getClass().getSimpleName().contains("$$Lambda");
     }
+
+    /**
+     * A capturing lambda (or anonymous class) stores the captured variables in instance fields and is allocated
+     * every time its expression is evaluated; a non-capturing lambda has none and is cached by the JVM.
+     */
+    public static <T> boolean isCapturing(T e) {
+        return !capturedFields(e).isEmpty();
+    }
+
+    /** Names and types of the state captured by {@code e}, e.g. {@code "arg$1: java.util.List"}. */
+    public static <T> List<String> capturedFields(T e) {
+        List<String> captured = new ArrayList<>();
+        for (Field field : instanceFields(e.getClass())) {
+            captured.add(field.getName() + ": " + field.getType().getName());
+        }
+        return captured;
+    }
+
+    /**
+     * Estimated shallow size of {@code e} in bytes on a 64-bit JVM with compressed references: the object header
+     * plus its fields, rounded up to 8 bytes. This is what evaluating a capturing lambda allocates; objects
+     * reachable through captured references are not included, see {@link #deepSize}.
+     */
+    public static <T> long shallowSize(T e) {
+        if (e.getClass().isArray()) {
+            return align(ARRAY_HEADER_BYTES + (long) Array.getLength(e) * fieldBytes(e.getClass().getComponentType()));
+        }
+        long size = OBJECT_HEADER_BYTES;
+        for (Field field : instanceFields(e.getClass())) {
+            size += fieldBytes(field.getType());
+        }
+        return align(size);
+    }
+
+    /**
+     * Estimated size of {@code e} and every object reachable from it through instance fields and array elements,
+     * each counted once, with the same layout assumptions as {@link #shallowSize}. Objects shared with the rest of
+     * the program are included, so this bounds from above what keeping {@code e} alive retains. {@link Class}
+     * instances are not followed, and neither are the fields of classes that deny reflective access (JDK 9+
+     * modules), whose objects count with their shallow size only.
+     */
+    public static <T> long deepSize(T e) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(e);
+        visited.add(e);
+        long size = 0;
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            size += shallowSize(current);
+            for (Object referenced : references(current)) {
+                if (referenced != null && !(referenced instanceof Class) && visited.add(referenced)) {
+                    pending.push(referenced);
+                }
+            }
+        }
+        return size;
+    }
+
+    /** {@code true} if evaluating the factory twice returns the same instance, i.e. nothing is allocated. */
+    public static <T> boolean isSameInstance(Supplier<T> factory) {
+        return factory.get() == factory.get();
+    }
+
+    /** Fails with the captured fields listed if {@code e} captures any state. */
+    public static <T> void assertNonCapturing(T e) {
+        List<String> captured = capturedFields(e);
+        if (!captured.isEmpty()) {
+            throw new AssertionError(e.getClass().getName() + " captures " + captured
+                + " (" + shallowSize(e) + " bytes per evaluation, " + deepSize(e) + " bytes reachable)");
+        }
+    }
+
+    /** Fails if the factory allocates a new functional object on each evaluation. */
+    public static <T> void assertSameInstance(Supplier<T> factory) {
+        T first = factory.get();
+        T second = factory.get();
+        if (first != second) {
+            throw new AssertionError("Factory returns a new " + first.getClass().getName() + " on each call"
+                + (isCapturing(first) ? ", capturing " + capturedFields(first) : ""));
+        }
+    }
+
+    private static List<Field> instanceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static List<Object> references(Object object) {
+        List<Object> references = new ArrayList<>();
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            if (!type.getComponentType().isPrimitive()) {
+                Collections.addAll(references, (Object[]) object);
+            }
+            return references;
+        }
+        for (Field field : instanceFields(type)) {
+            if (field.getType().isPrimitive()) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                references.add(field.get(object));
+            } catch (RuntimeException | IllegalAccessException denied) {
+                // inaccessible module internals count with their shallow size only
+                return Collections.emptyList();
+            }
+        }
+        return references;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int fieldBytes(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_BYTES;
+    }
 }
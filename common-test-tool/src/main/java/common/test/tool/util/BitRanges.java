@@ -0,0 +1,188 @@
+package common.test.tool.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collector;
+
+/**
+ * Range lists such as {@code "7,1-3,5"} held as one bit per position in a {@link BitSet}.
+ * <p>
+ * Positions are 1-based as in the bit strings ({@code "1-3"} is {@code "111"}), so position {@code n} is bit
+ * {@code n - 1}. Tokens are parsed without splitting or boxing, and because the union of ranges does not depend
+ * on order the collectors are {@link Collector.Characteristics#UNORDERED UNORDERED} and combine parallel splits
+ * with {@link BitSet#or}.
+ */
+public final class BitRanges {
+
+    private static final Set<Collector.Characteristics> UNORDERED =
+        Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.UNORDERED));
+    private static final Set<Collector.Characteristics> UNORDERED_IDENTITY = Collections.unmodifiableSet(
+        EnumSet.of(Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH));
+    private static final int CHUNK = 4096;
+
+    private BitRanges() {
+    }
+
+    /** Collects range tokens like {@code "14-17"} or {@code "9"} into a {@link BitSet}. */
+    public static Collector<CharSequence, ?, BitSet> toBitSet() {
+        return new CollectorImpl<CharSequence, BitSet, BitSet>(BitSet::new, BitRanges::parse, BitRanges::or,
+            bits -> bits, UNORDERED_IDENTITY);
+    }
+
+    /** Collects range tokens into a string of {@code '0'} and {@code '1'} as long as the highest position. */
+    public static Collector<CharSequence, ?, String> toBitString() {
+        return new CollectorImpl<CharSequence, BitSet, String>(BitSet::new, BitRanges::parse, BitRanges::or,
+            bits -> writeBitString(bits, new StringBuilder(bits.length())).toString(), UNORDERED);
+    }
+
+    /**
+     * Collects range tokens into the words of the bit set, as {@link BitSet#toLongArray()}: position {@code n} is bit
+     * {@code (n - 1) % 64} of word {@code (n - 1) / 64}. {@link BitSet#valueOf(long[])} reads them back.
+     */
+    public static Collector<CharSequence, ?, long[]> toWords() {
+        return new CollectorImpl<CharSequence, BitSet, long[]>(BitSet::new, BitRanges::parse, BitRanges::or,
+            BitSet::toLongArray, UNORDERED);
+    }
+
+    /** Collects range tokens and streams the resulting bit string into {@code out}. */
+    public static <A extends Appendable> Collector<CharSequence, ?, A> toBitString(A out) {
+        return new CollectorImpl<CharSequence, BitSet, A>(BitSet::new, BitRanges::parse, BitRanges::or,
+            bits -> writeBitString(bits, out), UNORDERED);
+    }
+
+    /** Parses a whole comma-separated range list such as {@code "7,1-3,5"}; an empty list has no positions. */
+    public static BitSet parseRangeList(CharSequence list) {
+        BitSet bits = new BitSet();
+        int length = list.length();
+        if (length == 0) {
+            return bits;
+        }
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || list.charAt(i) == ',') {
+                parse(bits, list, start, i);
+                start = i + 1;
+            }
+        }
+        return bits;
+    }
+
+    /** Parses a range list into the words of its bit set, see {@link #toWords()}. */
+    public static long[] parseWords(CharSequence list) {
+        return parseRangeList(list).toLongArray();
+    }
+
+    /** Sets the positions of a single {@code "n"} or {@code "from-to"} token (inclusive, 1-based). */
+    public static void parse(BitSet bits, CharSequence token) {
+        parse(bits, token, 0, token.length());
+    }
+
+    private static void parse(BitSet bits, CharSequence text, int start, int end) {
+        int dash = -1;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '-') {
+                dash = i;
+                break;
+            }
+        }
+        if (dash < 0) {
+            bits.set(position(text, start, end) - 1);
+        } else {
+            int from = position(text, start, dash);
+            int to = position(text, dash + 1, end);
+            if (from > to) {
+                throw new IllegalArgumentException("Descending range: " + text.subSequence(start, end));
+            }
+            bits.set(from - 1, to);
+        }
+    }
+
+    private static int position(CharSequence token, int start, int end) {
+        while (start < end && token.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && token.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("Empty position in: " + token);
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = token.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                throw new IllegalArgumentException("Invalid position in: " + token);
+            }
+            value = value * 10 + digit;
+        }
+        if (value == 0) {
+            throw new IllegalArgumentException("Positions start at 1: " + token);
+        }
+        return value;
+    }
+
+    private static BitSet or(BitSet left, BitSet right) {
+        left.or(right);
+        return left;
+    }
+
+    /** Writes one char per position up to the highest set bit, in chunks of {@value #CHUNK} chars. */
+    public static <A extends Appendable> A writeBitString(BitSet bits, A out) {
+        char[] chunk = new char[CHUNK];
+        int length = bits.length();
+        try {
+            for (int start = 0; start < length; start += CHUNK) {
+                int end = Math.min(start + CHUNK, length);
+                Arrays.fill(chunk, 0, end - start, '0');
+                for (int bit = bits.nextSetBit(start); bit >= 0 && bit < end; bit = bits.nextSetBit(bit + 1)) {
+                    chunk[bit - start] = '1';
+                }
+                out.append(CharBuffer.wrap(chunk, 0, end - start));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /** Formats the set positions back into the shortest range list, e.g. {@code "1-3,5,7"}. */
+    public static String toRangeList(BitSet bits) {
+        StringBuilder result = new StringBuilder();
+        for (int from = bits.nextSetBit(0); from >= 0; from = bits.nextSetBit(from)) {
+            int to = bits.nextClearBit(from);
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(from + 1);
+            if (to - 1 > from) {
+                result.append('-').append(to);
+            }
+            from = to;
+        }
+        return result.toString();
+    }
+
+    public static BitSet union(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.or(right);
+        return result;
+    }
+
+    public static BitSet intersection(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.and(right);
+        return result;
+    }
+
+    public static BitSet difference(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.andNot(right);
+        return result;
+    }
+}
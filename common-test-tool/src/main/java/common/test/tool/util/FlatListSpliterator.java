@@ -0,0 +1,124 @@
+package common.test.tool.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator over the concatenation of several lists, e.g. the items of all shops.
+ * <p>
+ * A prefix sum of the list sizes is computed up front, so the spliterator knows its exact size and
+ * {@link #trySplit()} halves the remaining element range wherever it falls, including in the middle of one list.
+ * {@code flatMap(List::stream)} can only split across the outer list, which leaves one large inner list to a
+ * single task. Reports {@code ORDERED | SIZED | SUBSIZED}; the lists must not change while it is in use and should
+ * be {@link java.util.RandomAccess}.
+ */
+public final class FlatListSpliterator<T> implements Spliterator<T> {
+
+    private final List<List<? extends T>> lists;
+    // starts[i] is the flat index of the first element of lists.get(i), starts[lists.size()] the total size
+    private final long[] starts;
+    private long index;
+    private final long fence;
+    private int list;
+
+    private FlatListSpliterator(List<List<? extends T>> lists, long[] starts, long index, long fence) {
+        this.lists = lists;
+        this.starts = starts;
+        this.index = index;
+        this.fence = fence;
+        this.list = locate(starts, index);
+    }
+
+    /** Elements of {@code part(container)} for each container in order; {@code null} parts count as empty. */
+    public static <S, T> Spliterator<T> of(List<? extends S> containers,
+                                           Function<? super S, ? extends List<? extends T>> part) {
+        List<List<? extends T>> lists = new ArrayList<>(containers.size());
+        long[] starts = new long[containers.size() + 1];
+        int i = 0;
+        for (S container : containers) {
+            List<? extends T> elements = part.apply(container);
+            lists.add(elements == null ? Collections.<T>emptyList() : elements);
+            starts[i + 1] = starts[i] + lists.get(i).size();
+            i++;
+        }
+        return new FlatListSpliterator<>(lists, starts, 0, starts[lists.size()]);
+    }
+
+    public static <T> Spliterator<T> of(List<? extends List<? extends T>> lists) {
+        return of(lists, Function.identity());
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index >= fence) {
+            return false;
+        }
+        while (index >= starts[list + 1]) {
+            list++;
+        }
+        action.accept(lists.get(list).get((int) (index - starts[list])));
+        index++;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        long i = index;
+        int l = list;
+        while (i < fence) {
+            List<? extends T> current = lists.get(l);
+            int end = (int) (Math.min(fence, starts[l + 1]) - starts[l]);
+            for (int j = (int) (i - starts[l]); j < end; j++) {
+                action.accept(current.get(j));
+            }
+            i = starts[l] + end;
+            l++;
+        }
+        index = fence;
+        list = l > 0 ? l - 1 : 0;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long mid = (index + fence) >>> 1;
+        if (mid <= index) {
+            return null;
+        }
+        Spliterator<T> prefix = new FlatListSpliterator<>(lists, starts, index, mid);
+        index = mid;
+        list = locate(starts, mid);
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+
+    /** Last list whose start is at or before {@code index}, skipping nothing a forward scan would need. */
+    private static int locate(long[] starts, long index) {
+        int low = 0;
+        int high = starts.length - 2;
+        if (high < 0) {
+            return 0;
+        }
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
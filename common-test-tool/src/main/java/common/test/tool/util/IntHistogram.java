@@ -0,0 +1,347 @@
+package common.test.tool.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Counts or sums {@code long} values per {@code int} key without boxing either.
+ * <p>
+ * While the keys seen span at most {@link #DENSE_RANGE} values (ages, years, small codes) the histogram is a dense
+ * {@code long[]} indexed by {@code key - base}; once they spread further it switches to an open-addressing
+ * {@code int -> long} table. Two dense histograms merge by array addition, which is what parallel splits of a
+ * {@link #counting} collector normally do. {@link #asMap()} presents the result as a {@code Map<Integer, Long>}.
+ */
+public final class IntHistogram {
+
+    public static final int DENSE_RANGE = 1 << 12;
+
+    private static final Set<Collector.Characteristics> CHARACTERISTICS = Collections.unmodifiableSet(
+        EnumSet.of(Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH));
+    private static final int INITIAL_CAPACITY = 16;
+
+    // dense mode: values[key - base], present[key - base]
+    private int base;
+    private long[] dense;
+    private boolean[] present;
+
+    // sparse mode: linear probing over power-of-two tables
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+
+    private int size;
+
+    /** Collects the number of elements per key, like {@code groupingBy(key, counting())}. */
+    public static <T> Collector<T, ?, IntHistogram> counting(ToIntFunction<? super T> key) {
+        return new CollectorImpl<T, IntHistogram, IntHistogram>(IntHistogram::new,
+            (histogram, element) -> histogram.add(key.applyAsInt(element), 1L),
+            IntHistogram::merge, Function.identity(), CHARACTERISTICS);
+    }
+
+    /** Collects the sum of {@code value} per key, like {@code groupingBy(key, summingLong(value))}. */
+    public static <T> Collector<T, ?, IntHistogram> summing(ToIntFunction<? super T> key,
+                                                            ToLongFunction<? super T> value) {
+        return new CollectorImpl<T, IntHistogram, IntHistogram>(IntHistogram::new,
+            (histogram, element) -> histogram.add(key.applyAsInt(element), value.applyAsLong(element)),
+            IntHistogram::merge, Function.identity(), CHARACTERISTICS);
+    }
+
+    /** {@link #counting} finished as a {@code Map<Integer, Long>} view for existing callers. */
+    public static <T> Collector<T, ?, Map<Integer, Long>> countingAsMap(ToIntFunction<? super T> key) {
+        return new CollectorImpl<T, IntHistogram, Map<Integer, Long>>(IntHistogram::new,
+            (histogram, element) -> histogram.add(key.applyAsInt(element), 1L),
+            IntHistogram::merge, IntHistogram::asMap, Collections.emptySet());
+    }
+
+    public boolean isDense() {
+        return keys == null;
+    }
+
+    /** Number of distinct keys. */
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        if (isDense()) {
+            long index = (long) key - base;
+            return dense != null && index >= 0 && index < dense.length && present[(int) index];
+        }
+        return used[slot(key)];
+    }
+
+    /** Value for {@code key}, or 0 if absent. */
+    public long get(int key) {
+        if (isDense()) {
+            long index = (long) key - base;
+            return dense != null && index >= 0 && index < dense.length ? dense[(int) index] : 0L;
+        }
+        int slot = slot(key);
+        return used[slot] ? values[slot] : 0L;
+    }
+
+    public void add(int key, long delta) {
+        if (isDense() && fitDense(key)) {
+            int index = key - base;
+            if (!present[index]) {
+                present[index] = true;
+                size++;
+            }
+            dense[index] += delta;
+            return;
+        }
+        addSparse(key, delta);
+    }
+
+    /** Adds every entry of {@code other} into this histogram and returns it. */
+    public IntHistogram merge(IntHistogram other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return other;
+        }
+        // decide on the keys other actually holds; its array may extend well beyond them
+        if (isDense() && other.isDense()) {
+            int first = other.firstPresent();
+            int last = other.lastPresent();
+            if (fitDense(other.base + first) && fitDense(other.base + last)) {
+                int offset = (int) ((long) other.base - base);
+                for (int i = first; i <= last; i++) {
+                    if (other.present[i]) {
+                        if (!present[offset + i]) {
+                            present[offset + i] = true;
+                            size++;
+                        }
+                        dense[offset + i] += other.dense[i];
+                    }
+                }
+                return this;
+            }
+        }
+        other.forEach(this::add);
+        return this;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, long value);
+    }
+
+    /** Visits every entry; dense histograms visit keys in ascending order. */
+    public void forEach(EntryConsumer action) {
+        if (isDense()) {
+            if (dense != null) {
+                for (int i = 0; i < dense.length; i++) {
+                    if (present[i]) {
+                        action.accept(base + i, dense[i]);
+                    }
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /** Read-only {@code Map<Integer, Long>} view; keys and values are boxed only as they are read. */
+    public Map<Integer, Long> asMap() {
+        return new MapView();
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    /** Index of the lowest key in a non-empty dense histogram. */
+    private int firstPresent() {
+        int i = 0;
+        while (!present[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Index of the highest key in a non-empty dense histogram. */
+    private int lastPresent() {
+        int i = present.length - 1;
+        while (!present[i]) {
+            i--;
+        }
+        return i;
+    }
+
+    /** Makes room for {@code key} in the dense array if the covered range stays within {@link #DENSE_RANGE}. */
+    private boolean fitDense(int key) {
+        if (dense == null) {
+            base = key;
+            dense = new long[INITIAL_CAPACITY];
+            present = new boolean[INITIAL_CAPACITY];
+            return true;
+        }
+        long low = Math.min((long) base, key);
+        long high = Math.max((long) base + dense.length - 1, key);
+        if (low >= base && high < (long) base + dense.length) {
+            return true;
+        }
+        if (high - low + 1 > DENSE_RANGE) {
+            toSparse();
+            return false;
+        }
+        int length = (int) Math.min(DENSE_RANGE, Math.max(high - low + 1, 2L * dense.length));
+        if (low < base) {
+            low = Math.max(high - length + 1, (long) Integer.MIN_VALUE);
+        }
+        long[] grownValues = new long[length];
+        boolean[] grownPresent = new boolean[length];
+        int shift = (int) (base - low);
+        System.arraycopy(dense, 0, grownValues, shift, dense.length);
+        System.arraycopy(present, 0, grownPresent, shift, present.length);
+        base = (int) low;
+        dense = grownValues;
+        present = grownPresent;
+        return true;
+    }
+
+    private void toSparse() {
+        int oldBase = base;
+        long[] oldValues = dense;
+        boolean[] oldPresent = present;
+        dense = null;
+        present = null;
+        keys = new int[INITIAL_CAPACITY];
+        values = new long[INITIAL_CAPACITY];
+        used = new boolean[INITIAL_CAPACITY];
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldPresent[i]) {
+                addSparse(oldBase + i, oldValues[i]);
+            }
+        }
+    }
+
+    private void addSparse(int key, long delta) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            if (2 * (size + 1) > keys.length) {
+                rehash(keys.length * 2);
+                slot = slot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] += delta;
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private final class MapView extends AbstractMap<Integer, Long> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && IntHistogram.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public Long get(Object key) {
+            return containsKey(key) ? IntHistogram.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public Set<Entry<Integer, Long>> entrySet() {
+            return new AbstractSet<Entry<Integer, Long>>() {
+                @Override
+                public Iterator<Entry<Integer, Long>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Integer, Long>> {
+
+        private final boolean denseMode = isDense();
+        private final int length = denseMode ? (dense == null ? 0 : dense.length) : keys.length;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            boolean[] flags = denseMode ? present : used;
+            int i = from;
+            while (i < length && !flags[i]) {
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < length;
+        }
+
+        @Override
+        public Map.Entry<Integer, Long> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = next;
+            next = advance(i + 1);
+            return denseMode
+                ? new AbstractMap.SimpleImmutableEntry<>(base + i, dense[i])
+                : new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package common.test.tool.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Text-joining {@link Collector}s which keep encounter order in parallel streams.
+ * <p>
+ * Each split appends into presized {@link StringBuilder} segments. A segment still regrows up to
+ * {@link #MAX_SEGMENT_LENGTH} chars, and then is closed rather than grown further, so building recopies at most one
+ * segment's worth of text at a time instead of the whole output. Combining two splits only links their segment
+ * lists. The {@code String} finisher copies the segments once into an exactly-sized {@code char[]}, which the
+ * {@link String} constructor copies once more; {@link #joiningTo} instead writes them to an {@link Appendable} such
+ * as a {@link java.io.Writer}, in which case the whole text never exists in one piece.
+ */
+public final class JoiningCollectors {
+
+    /** Initial capacity of each segment, in chars. */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 256;
+    /** Segments are closed once they reach this many chars instead of being grown further. */
+    public static final int MAX_SEGMENT_LENGTH = 1 << 16;
+
+    private JoiningCollectors() {
+    }
+
+    public static Collector<CharSequence, ?, String> joining(CharSequence delimiter) {
+        return joining(delimiter, "", "");
+    }
+
+    public static Collector<CharSequence, ?, String> joining(CharSequence delimiter, CharSequence prefix,
+                                                            CharSequence suffix) {
+        return joining(delimiter, prefix, suffix, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * @param segmentCapacity initial capacity of each segment; an estimate of the text produced per split
+     *                        avoids regrowing the first buffer
+     */
+    public static Collector<CharSequence, ?, String> joining(CharSequence delimiter, CharSequence prefix,
+                                                            CharSequence suffix, int segmentCapacity) {
+        String separator = delimiter.toString();
+        return new CollectorImpl<>(segments(segmentCapacity),
+            (segments, element) -> segments.add(element, separator),
+            (left, right) -> left.merge(right, separator),
+            segments -> segments.toString(prefix, suffix),
+            Collections.emptySet());
+    }
+
+    /** Writes the joined text to {@code out} in the finisher and returns {@code out}. */
+    public static <A extends Appendable> Collector<CharSequence, ?, A> joiningTo(A out, CharSequence delimiter,
+                                                                               CharSequence prefix,
+                                                                               CharSequence suffix) {
+        String separator = delimiter.toString();
+        return new CollectorImpl<>(segments(DEFAULT_SEGMENT_CAPACITY),
+            (segments, element) -> segments.add(element, separator),
+            (left, right) -> left.merge(right, separator),
+            segments -> segments.writeTo(out, prefix, suffix),
+            Collections.emptySet());
+    }
+
+    private static Supplier<Segments> segments(int segmentCapacity) {
+        if (segmentCapacity < 1) {
+            throw new IllegalArgumentException("segmentCapacity must be positive: " + segmentCapacity);
+        }
+        return () -> new Segments(segmentCapacity);
+    }
+
+    private static final class Segments {
+
+        private final int capacity;
+        private final List<StringBuilder> closed = new ArrayList<>();
+        private StringBuilder current;
+        private long length;
+        private boolean empty = true;
+
+        private Segments(int capacity) {
+            this.capacity = capacity;
+            this.current = new StringBuilder(capacity);
+        }
+
+        private void add(CharSequence element, String delimiter) {
+            if (current.length() >= MAX_SEGMENT_LENGTH) {
+                closed.add(current);
+                current = new StringBuilder(capacity);
+            }
+            if (!empty) {
+                current.append(delimiter);
+                length += delimiter.length();
+            }
+            current.append(element);
+            length += element.length();
+            empty = false;
+        }
+
+        private Segments merge(Segments right, String delimiter) {
+            if (right.empty) {
+                return this;
+            }
+            if (empty) {
+                return right;
+            }
+            current.append(delimiter);
+            closed.add(current);
+            closed.addAll(right.closed);
+            current = right.current;
+            length += delimiter.length() + right.length;
+            return this;
+        }
+
+        private String toString(CharSequence prefix, CharSequence suffix) {
+            long total = prefix.length() + length + suffix.length();
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Joined text of " + total + " chars does not fit in a String");
+            }
+            char[] chars = new char[(int) total];
+            int position = copy(prefix, chars, 0);
+            for (StringBuilder segment : closed) {
+                position = copy(segment, chars, position);
+            }
+            position = copy(current, chars, position);
+            copy(suffix, chars, position);
+            return new String(chars);
+        }
+
+        private static int copy(CharSequence text, char[] chars, int position) {
+            int length = text.length();
+            if (text instanceof String) {
+                ((String) text).getChars(0, length, chars, position);
+            } else if (text instanceof StringBuilder) {
+                ((StringBuilder) text).getChars(0, length, chars, position);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    chars[position + i] = text.charAt(i);
+                }
+            }
+            return position + length;
+        }
+
+        private <A extends Appendable> A writeTo(A out, CharSequence prefix, CharSequence suffix) {
+            try {
+                out.append(prefix);
+                for (int i = 0; i < closed.size(); i++) {
+                    out.append(closed.get(i));
+                    // release each segment once written so a Writer target keeps memory bounded
+                    closed.set(i, null);
+                }
+                out.append(current);
+                out.append(suffix);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out;
+        }
+    }
+}
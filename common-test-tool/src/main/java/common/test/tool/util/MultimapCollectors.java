@@ -0,0 +1,87 @@
+package common.test.tool.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * {@link Collector}s building key to set or list maps which are safe to fill from several threads at once.
+ * <p>
+ * Keys live in a {@link ConcurrentHashMap} and every value container is itself thread-safe, so the collectors
+ * are {@link Collector.Characteristics#CONCURRENT CONCURRENT}: a parallel stream accumulates straight into one
+ * shared map instead of building a map per split and merging them.
+ */
+public final class MultimapCollectors {
+
+    private static final Set<Collector.Characteristics> CONCURRENT = Collections.unmodifiableSet(EnumSet.of(
+        Collector.Characteristics.CONCURRENT,
+        Collector.Characteristics.UNORDERED,
+        Collector.Characteristics.IDENTITY_FINISH));
+
+    private MultimapCollectors() {
+    }
+
+    /** Groups each element's value under the element's single key, into concurrent sets. */
+    public static <T, K, V> Collector<T, ?, ConcurrentMap<K, Set<V>>> groupingToSet(
+        Function<? super T, ? extends K> keyMapper, Function<? super T, ? extends V> valueMapper) {
+        return collector((map, element) ->
+            map.computeIfAbsent(keyMapper.apply(element), key -> ConcurrentHashMap.newKeySet())
+                .add(valueMapper.apply(element)));
+    }
+
+    /**
+     * Adds each element's value under every one of the element's keys, into concurrent sets.
+     * This inverts a one-to-many relation, e.g. customers to the items they want.
+     */
+    public static <T, K, V> Collector<T, ?, ConcurrentMap<K, Set<V>>> invertingToSet(
+        Function<? super T, ? extends Collection<? extends K>> keysMapper,
+        Function<? super T, ? extends V> valueMapper) {
+        return collector((map, element) -> {
+            V value = valueMapper.apply(element);
+            for (K key : keysMapper.apply(element)) {
+                map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(value);
+            }
+        });
+    }
+
+    /**
+     * Like {@link #invertingToSet} but keeps duplicates in per-key synchronized lists.
+     * Each list is locked on its own, so contention is limited to threads adding under the same key.
+     * The order inside a list is the order in which threads reached it, not encounter order.
+     */
+    public static <T, K, V> Collector<T, ?, ConcurrentMap<K, List<V>>> invertingToList(
+        Function<? super T, ? extends Collection<? extends K>> keysMapper,
+        Function<? super T, ? extends V> valueMapper) {
+        return collector((map, element) -> {
+            V value = valueMapper.apply(element);
+            for (K key : keysMapper.apply(element)) {
+                map.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(value);
+            }
+        });
+    }
+
+    private static <T, K, C extends Collection<?>> Collector<T, ?, ConcurrentMap<K, C>> collector(
+        BiConsumer<ConcurrentMap<K, C>, T> accumulator) {
+        Supplier<ConcurrentMap<K, C>> supplier = ConcurrentHashMap::new;
+        return new CollectorImpl<>(supplier, accumulator, MultimapCollectors::merge, Function.identity(), CONCURRENT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, C extends Collection<?>> ConcurrentMap<K, C> merge(ConcurrentMap<K, C> left,
+                                                                        ConcurrentMap<K, C> right) {
+        right.forEach((key, values) -> left.merge(key, values, (a, b) -> {
+            ((Collection<Object>) a).addAll(b);
+            return a;
+        }));
+        return left;
+    }
+}
@@ -0,0 +1,402 @@
+package common.test.tool.util;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@code distinct()} for {@link IntStream} and {@link LongStream} that never boxes.
+ * <p>
+ * Values already seen are tracked in a bitmap when the caller gives the value range, and in an open-addressing
+ * {@code long} set otherwise. Three modes are offered:
+ * <ul>
+ * <li>{@link #distinct(IntStream)}: encounter order. A sequential source stays lazy, like
+ * {@link IntStream#distinct()}: its values are filtered through one set as they are pulled, by a spliterator that
+ * never hands the set to two threads at once, so the result may still be turned parallel. A parallel source is
+ * consumed when the method is called, so it must be finite: it is collected into one buffer per split, holding the
+ * split's first occurrences deduplicated by a small hash set; merging two splits only concatenates them, and a
+ * single set, the bitmap when a range is given, removes the remaining duplicates in one final pass.
+ * </li>
+ * <li>{@link #distinctUnordered(IntStream, int, int)}: any order and lazy. All threads share one lock-free bitmap
+ * over the range, so no merging is needed at all.</li>
+ * <li>{@link #toDistinctArray(IntStream)}: the ordered collection on its own, as an array.</li>
+ * </ul>
+ */
+public final class PrimitiveDistinct {
+
+    /** Largest range, in values, for which a bitmap is used (8 MB of bits). */
+    public static final long MAX_BITMAP_RANGE = 1L << 26;
+
+    private PrimitiveDistinct() {
+    }
+
+    public static IntStream distinct(IntStream stream) {
+        return distinct(stream, LongHashSet::new);
+    }
+
+    /** Encounter-ordered distinct over values known to lie in {@code [min, max]}. */
+    public static IntStream distinct(IntStream stream, int min, int max) {
+        return distinct(stream, () -> seenSet(min, max));
+    }
+
+    public static LongStream distinct(LongStream stream) {
+        return distinct(stream, LongHashSet::new);
+    }
+
+    /** Encounter-ordered distinct over values known to lie in {@code [min, max]}. */
+    public static LongStream distinct(LongStream stream, long min, long max) {
+        return distinct(stream, () -> seenSet(min, max));
+    }
+
+    /** Distinct values in no particular order, sharing one concurrent bitmap over {@code [min, max]}. */
+    public static IntStream distinctUnordered(IntStream stream, int min, int max) {
+        ConcurrentBitmap seen = new ConcurrentBitmap(min, max);
+        return stream.unordered().filter(seen::add);
+    }
+
+    /** Distinct values in no particular order, sharing one concurrent bitmap over {@code [min, max]}. */
+    public static LongStream distinctUnordered(LongStream stream, long min, long max) {
+        ConcurrentBitmap seen = new ConcurrentBitmap(min, max);
+        return stream.unordered().filter(seen::add);
+    }
+
+    /** First occurrences in encounter order, for sequential and parallel streams alike. */
+    public static int[] toDistinctArray(IntStream stream) {
+        return collect(stream, LongHashSet::new).toIntArray();
+    }
+
+    /** First occurrences in encounter order, for sequential and parallel streams alike. */
+    public static long[] toDistinctArray(LongStream stream) {
+        return collect(stream, LongHashSet::new).toLongArray();
+    }
+
+    private static IntStream distinct(IntStream stream, Supplier<SeenSet> seenSets) {
+        if (!stream.isParallel()) {
+            return StreamSupport.intStream(new DistinctInts(stream.spliterator(), seenSets), false)
+                .onClose(stream::close);
+        }
+        return Arrays.stream(collect(stream, seenSets).toIntArray()).parallel();
+    }
+
+    private static LongStream distinct(LongStream stream, Supplier<SeenSet> seenSets) {
+        if (!stream.isParallel()) {
+            return StreamSupport.longStream(new DistinctLongs(stream.spliterator(), seenSets), false)
+                .onClose(stream::close);
+        }
+        return Arrays.stream(collect(stream, seenSets).toLongArray()).parallel();
+    }
+
+    private static Buffer collect(IntStream stream, Supplier<SeenSet> seenSets) {
+        if (!stream.isParallel()) {
+            return stream.collect(() -> new Buffer(seenSets.get()), Buffer::add, Buffer::append);
+        }
+        return stream.collect(() -> new Buffer(new LongHashSet()), Buffer::add, Buffer::append)
+            .deduplicate(seenSets.get());
+    }
+
+    private static Buffer collect(LongStream stream, Supplier<SeenSet> seenSets) {
+        if (!stream.isParallel()) {
+            return stream.collect(() -> new Buffer(seenSets.get()), Buffer::add, Buffer::append);
+        }
+        return stream.collect(() -> new Buffer(new LongHashSet()), Buffer::add, Buffer::append)
+            .deduplicate(seenSets.get());
+    }
+
+    private static SeenSet seenSet(long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min " + min + " > max " + max);
+        }
+        return fitsBitmap(min, max) ? new Bitmap(min, max) : new LongHashSet();
+    }
+
+    /** Whether {@code [min, max]}, with {@code min <= max}, is narrower than {@link #MAX_BITMAP_RANGE}. */
+    private static boolean fitsBitmap(long min, long max) {
+        // max - min wraps for ranges wider than Long.MAX_VALUE, but is still right read as unsigned
+        return Long.compareUnsigned(max - min, MAX_BITMAP_RANGE) < 0;
+    }
+
+    /**
+     * Filters a sequential source through one set as values are pulled. The inherited {@code trySplit} copies a
+     * batch into an array on the calling thread, so the set is only ever used by one thread at a time.
+     */
+    private static final class DistinctInts extends Spliterators.AbstractIntSpliterator {
+
+        private final Spliterator.OfInt source;
+        private final Supplier<SeenSet> seenSets;
+        private SeenSet seen;
+
+        private DistinctInts(Spliterator.OfInt source, Supplier<SeenSet> seenSets) {
+            super(source.estimateSize(), source.characteristics() & Spliterator.ORDERED | Spliterator.DISTINCT);
+            this.source = source;
+            this.seenSets = seenSets;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            SeenSet set = seen();
+            boolean[] found = new boolean[1];
+            while (!found[0] && source.tryAdvance((int value) -> {
+                if (set.add(value)) {
+                    found[0] = true;
+                    action.accept(value);
+                }
+            })) {
+                // skip values already seen
+            }
+            return found[0];
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            SeenSet set = seen();
+            source.forEachRemaining((int value) -> {
+                if (set.add(value)) {
+                    action.accept(value);
+                }
+            });
+        }
+
+        private SeenSet seen() {
+            if (seen == null) {
+                seen = seenSets.get();
+            }
+            return seen;
+        }
+    }
+
+    /** {@link DistinctInts} for {@code long} sources. */
+    private static final class DistinctLongs extends Spliterators.AbstractLongSpliterator {
+
+        private final Spliterator.OfLong source;
+        private final Supplier<SeenSet> seenSets;
+        private SeenSet seen;
+
+        private DistinctLongs(Spliterator.OfLong source, Supplier<SeenSet> seenSets) {
+            super(source.estimateSize(), source.characteristics() & Spliterator.ORDERED | Spliterator.DISTINCT);
+            this.source = source;
+            this.seenSets = seenSets;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            SeenSet set = seen();
+            boolean[] found = new boolean[1];
+            while (!found[0] && source.tryAdvance((long value) -> {
+                if (set.add(value)) {
+                    found[0] = true;
+                    action.accept(value);
+                }
+            })) {
+                // skip values already seen
+            }
+            return found[0];
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            SeenSet set = seen();
+            source.forEachRemaining((long value) -> {
+                if (set.add(value)) {
+                    action.accept(value);
+                }
+            });
+        }
+
+        private SeenSet seen() {
+            if (seen == null) {
+                seen = seenSets.get();
+            }
+            return seen;
+        }
+    }
+
+    /**
+     * First occurrences in encounter order. Within one split they are deduplicated by {@code seen}; after
+     * {@link #append} the buffer may hold duplicates until {@link #deduplicate} is called.
+     */
+    private static final class Buffer {
+
+        private final SeenSet seen;
+        private long[] values = new long[16];
+        private int size;
+
+        private Buffer(SeenSet seen) {
+            this.seen = seen;
+        }
+
+        private void add(long value) {
+            if (seen.add(value)) {
+                push(value);
+            }
+        }
+
+        private void add(int value) {
+            add((long) value);
+        }
+
+        private void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        /** Concatenates {@code right}, which follows this buffer in encounter order. */
+        private void append(Buffer right) {
+            if (size + right.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + right.size, size << 1));
+            }
+            System.arraycopy(right.values, 0, values, size, right.size);
+            size += right.size;
+        }
+
+        /** The first occurrence of each value, in order, tracked by {@code seen}. */
+        private Buffer deduplicate(SeenSet seen) {
+            Buffer result = new Buffer(seen);
+            for (int i = 0; i < size; i++) {
+                result.add(values[i]);
+            }
+            return result;
+        }
+
+        private long[] toLongArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        private int[] toIntArray() {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = (int) values[i];
+            }
+            return result;
+        }
+    }
+
+    private interface SeenSet {
+
+        /** Returns {@code true} if the value was not seen before. */
+        boolean add(long value);
+
+        default boolean add(int value) {
+            return add((long) value);
+        }
+    }
+
+    private static final class Bitmap implements SeenSet {
+
+        private final long min;
+        private final long max;
+        private final long[] words;
+
+        private Bitmap(long min, long max) {
+            this.min = min;
+            this.max = max;
+            this.words = new long[(int) ((max - min) / 64 + 1)];
+        }
+
+        @Override
+        public boolean add(long value) {
+            if (value < min || value > max) {
+                throw new IllegalArgumentException(value + " outside [" + min + ", " + max + "]");
+            }
+            long offset = value - min;
+            int word = (int) (offset >>> 6);
+            long mask = 1L << offset;
+            if ((words[word] & mask) != 0) {
+                return false;
+            }
+            words[word] |= mask;
+            return true;
+        }
+    }
+
+    private static final class ConcurrentBitmap implements SeenSet {
+
+        private final long min;
+        private final long max;
+        private final AtomicLongArray words;
+
+        private ConcurrentBitmap(long min, long max) {
+            if (min > max || !fitsBitmap(min, max)) {
+                throw new IllegalArgumentException("Range [" + min + ", " + max + "] unsuitable for a bitmap");
+            }
+            this.min = min;
+            this.max = max;
+            this.words = new AtomicLongArray((int) ((max - min) / 64 + 1));
+        }
+
+        @Override
+        public boolean add(long value) {
+            if (value < min || value > max) {
+                throw new IllegalArgumentException(value + " outside [" + min + ", " + max + "]");
+            }
+            long offset = value - min;
+            int word = (int) (offset >>> 6);
+            long mask = 1L << offset;
+            while (true) {
+                long current = words.get(word);
+                if ((current & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(word, current, current | mask)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /** Open-addressing set of {@code long}s with linear probing. */
+    private static final class LongHashSet implements SeenSet {
+
+        private long[] table = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        @Override
+        public boolean add(long value) {
+            int slot = slot(table, used, value);
+            if (used[slot]) {
+                return false;
+            }
+            if (2 * (size + 1) > table.length) {
+                grow();
+                slot = slot(table, used, value);
+            }
+            used[slot] = true;
+            table[slot] = value;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] oldTable = table;
+            boolean[] oldUsed = used;
+            table = new long[oldTable.length << 1];
+            used = new boolean[oldTable.length << 1];
+            for (int i = 0; i < oldTable.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slot(table, used, oldTable[i]);
+                    used[slot] = true;
+                    table[slot] = oldTable[i];
+                }
+            }
+        }
+
+        private static int slot(long[] table, boolean[] used, long value) {
+            int mask = table.length - 1;
+            long h = value * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+            while (used[slot] && table[slot] != value) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
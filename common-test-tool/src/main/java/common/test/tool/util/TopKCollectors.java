@@ -0,0 +1,258 @@
+package common.test.tool.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+/**
+ * Top-K and bottom-K {@link Collector}s which replace {@code sorted(comparator).limit(k)}.
+ * <p>
+ * Each split keeps only its best {@code k} elements in a bounded heap, so collecting {@code n} elements costs
+ * O(n log k) time and O(k) memory, and two splits merge in O(k log k). Ties keep encounter order: among equal
+ * elements the earlier one ranks first, in serial and parallel streams alike, exactly as a stable sort would.
+ * Heaps start at {@value #INITIAL_CAPACITY} elements and grow up to {@code k}, so a large {@code k} costs memory
+ * only in splits that see that many elements. Both collectors return a modifiable {@link ArrayList}.
+ */
+public final class TopKCollectors {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private TopKCollectors() {
+    }
+
+    /** The {@code k} greatest elements by {@code comparator}, greatest first. */
+    public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+        return bounded(k, Collections.reverseOrder(comparator));
+    }
+
+    /** The {@code k} least elements by {@code comparator}, least first. */
+    public static <T> Collector<T, ?, List<T>> bottomK(int k, Comparator<? super T> comparator) {
+        return bounded(k, comparator);
+    }
+
+    /** The {@code k} elements with the greatest {@code int} key, greatest first; keys are never boxed. */
+    public static <T> Collector<T, ?, List<T>> topKByInt(int k, ToIntFunction<? super T> key) {
+        return byInt(k, key, true);
+    }
+
+    /** The {@code k} elements with the least {@code int} key, least first; keys are never boxed. */
+    public static <T> Collector<T, ?, List<T>> bottomKByInt(int k, ToIntFunction<? super T> key) {
+        return byInt(k, key, false);
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+    }
+
+    private static <T> Collector<T, ?, List<T>> bounded(int k, Comparator<? super T> order) {
+        checkK(k);
+        return new CollectorImpl<T, Bounded<T>, List<T>>(() -> new Bounded<>(k, order), Bounded::add,
+            Bounded::merge, Bounded::toList, Collections.emptySet());
+    }
+
+    private static <T> Collector<T, ?, List<T>> byInt(int k, ToIntFunction<? super T> key, boolean descending) {
+        checkK(k);
+        return new CollectorImpl<T, IntKeyed<T>, List<T>>(() -> new IntKeyed<>(k, key, descending), IntKeyed::add,
+            IntKeyed::merge, IntKeyed::toList, Collections.emptySet());
+    }
+
+    private static final class Ranked<T> {
+
+        private final T value;
+        private final long sequence;
+
+        private Ranked(T value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
+
+    /** Heap whose root is the worst element kept; {@code rank} orders best first, earlier elements first on ties. */
+    private static final class Bounded<T> {
+
+        private final int k;
+        private final Comparator<Ranked<T>> rank;
+        private final PriorityQueue<Ranked<T>> heap;
+        private long sequence;
+
+        private Bounded(int k, Comparator<? super T> order) {
+            this.k = k;
+            this.rank = Comparator.<Ranked<T>, T>comparing(ranked -> ranked.value, order)
+                .thenComparingLong(ranked -> ranked.sequence);
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, INITIAL_CAPACITY)), rank.reversed());
+        }
+
+        private void add(T value) {
+            offer(new Ranked<>(value, sequence++));
+        }
+
+        private void offer(Ranked<T> ranked) {
+            if (heap.size() < k) {
+                heap.add(ranked);
+            } else if (k > 0 && rank.compare(ranked, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+
+        /** Rebases {@code right}'s sequences after this split's so ties still resolve in encounter order. */
+        private Bounded<T> merge(Bounded<T> right) {
+            long offset = sequence;
+            for (Ranked<T> ranked : right.heap) {
+                offer(new Ranked<>(ranked.value, offset + ranked.sequence));
+            }
+            sequence = offset + right.sequence;
+            return this;
+        }
+
+        private List<Ranked<T>> sorted() {
+            List<Ranked<T>> list = new ArrayList<>(heap);
+            list.sort(rank);
+            return list;
+        }
+
+        private List<T> toList() {
+            List<T> result = new ArrayList<>(heap.size());
+            for (Ranked<T> ranked : sorted()) {
+                result.add(ranked.value);
+            }
+            return result;
+        }
+    }
+
+    /** Array heap over primitive keys; the root is the worst element kept. */
+    private static final class IntKeyed<T> {
+
+        private final int k;
+        private final ToIntFunction<? super T> key;
+        private final boolean descending;
+        private int[] keys;
+        private long[] sequences;
+        private Object[] values;
+        private int size;
+        private long sequence;
+
+        private IntKeyed(int k, ToIntFunction<? super T> key, boolean descending) {
+            this.k = k;
+            this.key = key;
+            this.descending = descending;
+            int capacity = Math.min(k, INITIAL_CAPACITY);
+            this.keys = new int[capacity];
+            this.sequences = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        private void add(T value) {
+            offer(key.applyAsInt(value), sequence++, value);
+        }
+
+        private void offer(int candidate, long order, Object value) {
+            if (size < k) {
+                if (size == keys.length) {
+                    grow();
+                }
+                keys[size] = candidate;
+                sequences[size] = order;
+                values[size] = value;
+                siftUp(size++);
+            } else if (k > 0 && better(candidate, order, keys[0], sequences[0])) {
+                keys[0] = candidate;
+                sequences[0] = order;
+                values[0] = value;
+                siftDown(0);
+            }
+        }
+
+        /** Doubles the arrays, up to {@code k}. */
+        private void grow() {
+            int capacity = (int) Math.min(k, 2L * keys.length);
+            keys = Arrays.copyOf(keys, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        private boolean better(int keyA, long seqA, int keyB, long seqB) {
+            if (keyA != keyB) {
+                return descending ? keyA > keyB : keyA < keyB;
+            }
+            return seqA < seqB;
+        }
+
+        private boolean worse(int i, int j) {
+            return better(keys[j], sequences[j], keys[i], sequences[i]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(i, parent)) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && worse(child + 1, child)) {
+                    child++;
+                }
+                if (!worse(child, i)) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            long order = sequences[i];
+            sequences[i] = sequences[j];
+            sequences[j] = order;
+            Object value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+
+        /** Rebases {@code right}'s sequences after this split's so ties still resolve in encounter order. */
+        private IntKeyed<T> merge(IntKeyed<T> right) {
+            long offset = sequence;
+            for (int i = 0; i < right.size; i++) {
+                offer(right.keys[i], offset + right.sequences[i], right.values[i]);
+            }
+            sequence = offset + right.sequence;
+            return this;
+        }
+
+        /** Drains the heap worst first, filling the result from the back. */
+        @SuppressWarnings("unchecked")
+        private List<T> toList() {
+            Object[] result = new Object[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = values[0];
+                size--;
+                keys[0] = keys[size];
+                sequences[0] = sequences[size];
+                values[0] = values[size];
+                values[size] = null;
+                siftDown(0);
+            }
+            return new ArrayList<>((List<T>) Arrays.asList(result));
+        }
+    }
+}
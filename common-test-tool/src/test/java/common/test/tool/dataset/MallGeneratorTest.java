@@ -0,0 +1,90 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MallGeneratorTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10_000)
+    public void steepExponentStocksTheWholeCatalog() {
+        List<Shop> shops = new MallGenerator(1).catalogSize(2000).zipfExponent(3).shops(1, 2000)
+            .shops().collect(Collectors.toList());
+
+        List<String> names = shops.get(0).getItemList().stream().map(Item::getName).collect(Collectors.toList());
+        assertThat(names.size(), is(2000));
+        assertThat(names.stream().distinct().count(), is(2000L));
+    }
+
+    @Test
+    public void rangesWiderThanAnInt() {
+        List<Customer> customers = new MallGenerator(2)
+            .budgets(Integer.MIN_VALUE, Integer.MAX_VALUE)
+            .ages(0, 0)
+            .customers(1000)
+            .customers()
+            .collect(Collectors.toList());
+
+        assertTrue(customers.stream().anyMatch(customer -> customer.getBudget() < 0));
+        assertTrue(customers.stream().anyMatch(customer -> customer.getBudget() > 0));
+        assertTrue(customers.stream().allMatch(customer -> customer.getAge() == 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRanges() {
+        new MallGenerator(3).ages(30, 20).customers().findFirst();
+    }
+
+    @Test
+    public void parallelStreamsYieldTheSameMall() {
+        MallGenerator generator = new MallGenerator(4).catalogSize(300).shops(200, 30).customers(5_000);
+
+        assertThat(describeShops(generator.shops().parallel().collect(Collectors.toList())),
+            is(describeShops(generator.shops().collect(Collectors.toList()))));
+        assertThat(describeCustomers(generator.customers().parallel().collect(Collectors.toList())),
+            is(describeCustomers(generator.customers().collect(Collectors.toList()))));
+    }
+
+    @Test
+    public void xmlMatchesTheGeneratedMall() throws IOException {
+        MallGenerator generator = new MallGenerator(5).catalogSize(50).shops(5, 10).customers(20);
+        Path file = folder.newFile("mall.xml").toPath();
+        generator.writeXml(file);
+
+        OnlineShoppingMall expected = generator.generate();
+        OnlineShoppingMall actual = MallSnapshot.of(file.toFile()).get();
+
+        assertThat(describeShops(actual.getShopList()), is(describeShops(expected.getShopList())));
+        assertThat(describeCustomers(actual.getCustomerList()), is(describeCustomers(expected.getCustomerList())));
+    }
+
+    private static List<String> describeShops(List<Shop> shops) {
+        return shops.stream()
+            .map(shop -> shop.getName() + shop.getItemList().stream()
+                .map(item -> item.getName() + ":" + item.getPrice()).collect(Collectors.toList()))
+            .collect(Collectors.toList());
+    }
+
+    private static List<String> describeCustomers(List<Customer> customers) {
+        return customers.stream()
+            .map(customer -> customer.getName() + "," + customer.getAge() + "," + customer.getBudget()
+                + customer.getWantToBuy().stream().map(Item::getName).collect(Collectors.toList()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,110 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MallSnapshotTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private MallSnapshot snapshot;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("data.xml");
+        Files.copy(Paths.get("src/test/resources/data.xml"), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        snapshot = MallSnapshot.of(file);
+    }
+
+    @Test
+    public void entitiesAreReadOnly() {
+        OnlineShoppingMall mall = snapshot.get();
+        Shop shop = mall.getShopList().get(0);
+        Customer customer = mall.getCustomerList().get(0);
+
+        assertThrows(() -> shop.setName("x"));
+        assertThrows(() -> shop.getItemList().get(0).setPrice(1));
+        assertThrows(() -> shop.getItemList().add(null));
+        assertThrows(() -> customer.setBudget(1));
+        assertThrows(() -> customer.getWantToBuy().get(0).setName("x"));
+        assertThrows(() -> mall.setCustomerList(null));
+        assertThrows(() -> mall.getShopList().remove(0));
+        assertThat(shop.getName(), is("White Furniture"));
+    }
+
+    @Test
+    public void unchangedFileIsNotParsedAgain() {
+        OnlineShoppingMall first = snapshot.get();
+        assertThat(snapshot.get(), is(sameInstance(first)));
+        assertThat(snapshot.getLoadCount(), is(1L));
+        assertThat(snapshot.getHitCount(), is(1L));
+    }
+
+    @Test
+    public void touchedFileWithSameContentIsOnlyChecksummed() {
+        OnlineShoppingMall first = snapshot.get();
+        assertTrue(file.setLastModified(file.lastModified() - 60_000));
+
+        assertThat(snapshot.get(), is(sameInstance(first)));
+        assertThat(snapshot.getLoadCount(), is(1L));
+    }
+
+    @Test
+    public void checksumCoversTheWholeFile() throws IOException {
+        OnlineShoppingMall first = snapshot.get();
+        // nothing the parser needs changes, but the bytes after the root element do
+        Files.write(file.toPath(), "<!-- trailer -->\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertTrue(file.setLastModified(file.lastModified() + 60_000));
+
+        assertThat(snapshot.get(), is(not(sameInstance(first))));
+        assertThat(snapshot.getLoadCount(), is(2L));
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file.toPath()));
+        assertThat(snapshot.getChecksum(), is(crc.getValue()));
+    }
+
+    @Test
+    public void changedFileIsReloaded() throws IOException {
+        OnlineShoppingMall first = snapshot.get();
+        long checksum = snapshot.getChecksum();
+        String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Files.write(file.toPath(), xml.replace("White Furniture", "Black Furniture").getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(file.lastModified() + 60_000));
+
+        OnlineShoppingMall second = snapshot.get();
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getShopList().get(0).getName(), is("Black Furniture"));
+        assertThat(first.getShopList().get(0).getName(), is("White Furniture"));
+        assertThat(snapshot.getLoadCount(), is(2L));
+        assertThat(snapshot.getChecksum(), is(not(checksum)));
+    }
+
+    private static void assertThrows(Runnable mutation) {
+        try {
+            mutation.run();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+            // read-only
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.NameDictionary;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MappedMallTest {
+
+    private static final File DATA = new File("src/test/resources/data.xml");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compiledFileMatchesTheJaxbMall() throws IOException {
+        Path path = folder.newFile().toPath();
+        MappedMallWriter.compile(DATA, path);
+
+        OnlineShoppingMall expected = MallSnapshot.of(DATA).get();
+        OnlineShoppingMall actual = MappedMall.open(path).toMall();
+
+        assertThat(describe(actual), is(describe(expected)));
+    }
+
+    @Test
+    public void writtenMallRoundTripsAbsentAndExtremeValues() throws IOException {
+        Customer customer = customer(null, null, Integer.MAX_VALUE);
+        customer.setWantToBuy(Collections.singletonList(item("x", Integer.MIN_VALUE + 1)));
+        Shop shop = new Shop();
+        shop.setName("s");
+        shop.setItemList(Collections.singletonList(item(null, null)));
+        OnlineShoppingMall mall = new OnlineShoppingMall();
+        mall.setShopList(Collections.singletonList(shop));
+        mall.setCustomerList(Collections.singletonList(customer));
+
+        Path path = folder.newFile().toPath();
+        MappedMallWriter.write(mall, path);
+
+        assertThat(describe(MappedMall.open(path).toMall()), is(describe(mall)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTheNullSentinelAsAValue() {
+        new MappedMallWriter().addCustomer(customer("c", Integer.MIN_VALUE, 0));
+    }
+
+    @Test
+    public void viewsReportTheFileNameIds() throws IOException {
+        Path path = folder.newFile().toPath();
+        MappedMallWriter.compile(DATA, path);
+        MappedMall mapped = MappedMall.open(path);
+        OnlineShoppingMall mall = mapped.toMall();
+
+        for (Shop shop : mall.getShopList()) {
+            assertThat(mapped.name(shop.getNameId()), is(shop.getName()));
+            for (Item item : shop.getItemList()) {
+                assertThat(mapped.name(item.getNameId()), is(item.getName()));
+            }
+        }
+        Customer first = mall.getCustomerList().get(0);
+        assertThat(mapped.name(first.getNameId()), is(first.getName()));
+        assertThat(first.getWantToBuy().get(0).getNameId(),
+            is(mall.getShopList().stream().flatMap(shop -> shop.getItemList().stream())
+                .filter(item -> item.getName().equals(first.getWantToBuy().get(0).getName()))
+                .findFirst().get().getNameId()));
+    }
+
+    @Test
+    public void absentNameHasNoId() throws IOException {
+        Path path = folder.newFile().toPath();
+        new MappedMallWriter().addCustomer(customer(null, 1, 2)).writeTo(path);
+
+        Customer customer = MappedMall.open(path).getCustomerList().get(0);
+        assertThat(customer.getName(), is(nullValue()));
+        assertThat(customer.getNameId(), is(NameDictionary.NO_ID));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewsAreReadOnly() throws IOException {
+        Path path = folder.newFile().toPath();
+        MappedMallWriter.compile(DATA, path);
+        MappedMall.open(path).getShopList().get(0).setNameId(0);
+    }
+
+    private static Customer customer(String name, Integer age, Integer budget) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setAge(age);
+        customer.setBudget(budget);
+        return customer;
+    }
+
+    private static Item item(String name, Integer price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+
+    private static List<String> describe(OnlineShoppingMall mall) {
+        List<String> lines = mall.getShopList().stream()
+            .map(shop -> shop.getName() + describe(shop.getItemList()))
+            .collect(Collectors.toList());
+        mall.getCustomerList().stream()
+            .map(customer -> customer.getName() + "," + customer.getAge() + "," + customer.getBudget()
+                + describe(customer.getWantToBuy()))
+            .forEach(lines::add);
+        return lines;
+    }
+
+    private static List<String> describe(List<Item> items) {
+        return items.stream().map(item -> item.getName() + ":" + item.getPrice()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,94 @@
+package common.test.tool.dataset;
+
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class StreamingMallReaderTest {
+
+    private static final File DATA = new File("src/test/resources/data.xml");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsTheSameShopsAndCustomersAsJaxb() {
+        OnlineShoppingMall mall = MallSnapshot.of(DATA).get();
+
+        List<String> shops;
+        try (Stream<Shop> stream = StreamingMallReader.shops(DATA)) {
+            shops = stream.map(StreamingMallReaderTest::describe).collect(Collectors.toList());
+        }
+        List<String> customers;
+        try (Stream<Customer> stream = StreamingMallReader.customers(DATA)) {
+            customers = stream.map(StreamingMallReaderTest::describe).collect(Collectors.toList());
+        }
+
+        assertThat(shops, is(mall.getShopList().stream()
+            .map(StreamingMallReaderTest::describe).collect(Collectors.toList())));
+        assertThat(customers, is(mall.getCustomerList().stream()
+            .map(StreamingMallReaderTest::describe).collect(Collectors.toList())));
+    }
+
+    @Test
+    public void stopsAtTheEndOfTheSection() throws IOException {
+        File file = write("<mall><shops><shop name=\"a\"/></shops>"
+            + "<customers><customer name=\"b\" age=\"1\" budget=\"2\"/></customers></mall>");
+
+        try (Stream<Shop> shops = StreamingMallReader.shops(file)) {
+            assertThat(shops.map(Shop::getName).collect(Collectors.toList()), contains("a"));
+        }
+        try (Stream<Customer> customers = StreamingMallReader.customers(file)) {
+            assertThat(customers.map(Customer::getName).collect(Collectors.toList()), contains("b"));
+        }
+    }
+
+    @Test
+    public void doesNotResolveExternalEntities() throws IOException {
+        File external = write("<shops><shop name=\"leaked\"/></shops>");
+        File file = write("<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE mall [<!ENTITY shops SYSTEM \"" + external.toURI() + "\">]>\n"
+            + "<mall>&shops;</mall>");
+
+        try (Stream<Shop> shops = StreamingMallReader.shops(file)) {
+            assertThat(shops.map(Shop::getName).collect(Collectors.toList()), not(hasItem("leaked")));
+        } catch (IllegalStateException rejected) {
+            // refusing the undeclared entity is just as good
+        }
+    }
+
+    private File write(String xml) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String describe(Shop shop) {
+        return shop.getName() + describe(shop.getItemList());
+    }
+
+    private static String describe(Customer customer) {
+        return customer.getName() + "," + customer.getAge() + "," + customer.getBudget()
+            + describe(customer.getWantToBuy());
+    }
+
+    private static String describe(List<Item> items) {
+        return items.stream().map(item -> item.getName() + ":" + item.getPrice()).collect(Collectors.toList()).toString();
+    }
+}
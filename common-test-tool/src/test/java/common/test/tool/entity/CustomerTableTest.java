@@ -0,0 +1,61 @@
+package common.test.tool.entity;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class CustomerTableTest extends ClassicOnlineStore {
+
+    @Test
+    public void columnsMatchTheCustomerList() {
+        List<Customer> customers = mall.getCustomerList();
+        CustomerTable table = CustomerTable.of(customers);
+
+        assertThat(table.size(), is(customers.size()));
+        assertThat(table.ages().boxed().collect(Collectors.toList()),
+            is(customers.stream().map(Customer::getAge).collect(Collectors.toList())));
+        assertThat(table.averageAge(), is(customers.stream().mapToInt(Customer::getAge).average()));
+        assertThat(table.maxBudget(), is(customers.stream().mapToInt(Customer::getBudget).max()));
+        assertThat(table.budgets().parallel().sum(), is(customers.stream().mapToInt(Customer::getBudget).sum()));
+        for (int row = 0; row < table.size(); row++) {
+            assertThat(table.toCustomer(row).getName(), is(customers.get(row).getName()));
+            assertThat(table.toCustomer(row).getBudget(), is(customers.get(row).getBudget()));
+        }
+        assertTrue(table.ageSpliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+    }
+
+    @Test
+    public void absentValuesAreSkippedAndRestored() {
+        List<Customer> customers = Arrays.asList(
+            customer("a", 20, null), customer("b", null, 300), customer("c", 40, 100));
+        CustomerTable table = CustomerTable.of(customers);
+
+        assertThat(table.ages().boxed().collect(Collectors.toList()),
+            is(customers.stream().map(Customer::getAge).filter(Objects::nonNull).collect(Collectors.toList())));
+        assertThat(table.averageAge().getAsDouble(), is(30.0));
+        assertThat(table.maxBudget().getAsInt(), is(300));
+        assertThat(table.budgets().parallel().count(), is(2L));
+        assertFalse(table.hasAge(1));
+        assertTrue(table.hasBudget(1));
+        assertThat(table.toCustomer(0).getBudget(), is(nullValue()));
+        assertThat(table.toCustomer(1).getAge(), is(nullValue()));
+        assertThat(table.toCustomer(2).getAge(), is(40));
+    }
+
+    private static Customer customer(String name, Integer age, Integer budget) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setAge(age);
+        customer.setBudget(budget);
+        return customer;
+    }
+}
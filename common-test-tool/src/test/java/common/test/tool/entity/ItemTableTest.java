@@ -0,0 +1,56 @@
+package common.test.tool.entity;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ItemTableTest extends ClassicOnlineStore {
+
+    @Test
+    public void flattenedShopsMatchTheItemLists() {
+        List<Item> items = mall.getShopList().stream()
+            .flatMap(shop -> shop.getItemList().stream())
+            .collect(Collectors.toList());
+        ItemTable table = ItemTable.ofShops(mall.getShopList());
+
+        assertThat(table.size(), is(items.size()));
+        assertThat(table.prices().boxed().collect(Collectors.toList()),
+            is(items.stream().map(Item::getPrice).collect(Collectors.toList())));
+        assertThat(table.totalPrice(), is(items.stream().mapToLong(Item::getPrice).sum()));
+        assertThat(table.longPrices().parallel().max(), is(items.stream().mapToLong(Item::getPrice).max()));
+        for (int row = 0; row < table.size(); row++) {
+            assertThat(table.name(row), is(items.get(row).getName()));
+        }
+    }
+
+    @Test
+    public void absentPricesAndItemListsAreSkipped() {
+        Shop empty = new Shop();
+        empty.setName("empty");
+        Shop shop = new Shop();
+        shop.setName("shop");
+        shop.setItemList(Arrays.asList(item("a", 10), item("b", null), item("c", 5)));
+        ItemTable table = ItemTable.ofShops(Arrays.asList(empty, shop));
+
+        assertThat(table.size(), is(3));
+        assertThat(table.prices().boxed().collect(Collectors.toList()), contains(10, 5));
+        assertThat(table.totalPrice(), is(15L));
+        assertFalse(table.hasPrice(1));
+        assertThat(table.toItem(1).getPrice(), is(nullValue()));
+        assertThat(ItemTable.of(shop.getItemList()).prices().parallel().sum(), is(15));
+    }
+
+    private static Item item(String name, Integer price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+}
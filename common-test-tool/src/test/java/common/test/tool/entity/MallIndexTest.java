@@ -0,0 +1,181 @@
+package common.test.tool.entity;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+
+import org.junit.Test;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MallIndexTest extends ClassicOnlineStore {
+
+    @Test
+    public void answersMatchTheShopLists() {
+        MallIndex index = MallIndex.of(mall.getShopList());
+
+        assertThat(index.names(), is(minPrices(mall.getShopList()).keySet()));
+        assertThat(index.minPrice("chair"), is(OptionalInt.of(600)));
+        assertThat(index.minPrice("tank", -1), is(-1));
+        assertThat(index.shopsOffering("chair").stream().map(Shop::getName).collect(Collectors.toSet()),
+            containsInAnyOrder("White Furniture", "Electrics"));
+        assertFalse(index.isOnSale("tank"));
+        assertThat(index.shopsOffering("tank"), is(empty()));
+    }
+
+    @Test
+    public void priceChangeAndRemoval() {
+        Shop furniture = shop("furniture", item("chair", 2000), item("table", 5000));
+        Shop electrics = shop("electrics", item("chair", 600));
+        MallIndex index = MallIndex.of(Arrays.asList(furniture, electrics));
+
+        Item cheap = electrics.getItemList().get(0);
+        index.removeItem(electrics, cheap);
+        assertThat(index.minPrice("chair").getAsInt(), is(2000));
+        assertThat(index.shopsOffering("chair"), contains(sameInstance(furniture)));
+
+        index.addItem(electrics, item("chair", 900));
+        assertThat(index.minPrice("chair").getAsInt(), is(900));
+
+        index.removeShop(furniture);
+        assertFalse(index.isOnSale("table"));
+        assertThat(index.shopsOffering("chair"), contains(sameInstance(electrics)));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    public void shopsWithoutItemsAndItemsWithoutPricesAreSkipped() {
+        Shop unlisted = new Shop();
+        unlisted.setName("unlisted");
+        Item unpriced = new Item();
+        unpriced.setName("lamp");
+        Shop lamps = shop("lamps", item("lamp", 40));
+        lamps.getItemList().add(unpriced);
+        lamps.getItemList().add(null);
+        MallIndex index = MallIndex.of(Arrays.asList(unlisted, lamps));
+
+        assertThat(index.names(), contains("lamp"));
+        assertThat(index.minPrice("lamp"), is(OptionalInt.of(40)));
+        index.removeShop(unlisted);
+        index.removeItem(lamps, unpriced);
+        assertThat(index.minPrice("lamp"), is(OptionalInt.of(40)));
+        index.removeShop(lamps);
+        assertThat(index.size(), is(0));
+    }
+
+    @Test
+    public void shopSetIsCopiedOnlyAfterItChanges() {
+        List<Shop> shops = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            shops.add(shop("shop" + i, item("chair", 1000 + i), item("chair", 2000 + i)));
+        }
+        MallIndex index = MallIndex.of(shops);
+
+        Set<Shop> offering = index.shopsOffering("chair");
+        assertThat(offering, hasSize(5_000));
+        assertThat(index.shopsOffering("chair"), is(sameInstance(offering)));
+
+        // a second offering from a shop already in the set leaves it alone
+        Shop first = shops.get(0);
+        index.removeItem(first, first.getItemList().get(0));
+        assertThat(index.shopsOffering("chair"), is(sameInstance(offering)));
+        assertThat(index.minPrice("chair"), is(OptionalInt.of(1001)));
+
+        index.removeItem(first, first.getItemList().get(1));
+        assertThat(index.shopsOffering("chair"), hasSize(4_999));
+        assertThat(index.shopsOffering("chair"), not(hasItem(sameInstance(first))));
+        assertThat(offering, hasSize(5_000));
+    }
+
+    @Test
+    public void concurrentUpdatesMatchARecomputedIndex() throws Exception {
+        int threads = 4;
+        List<Shop> shops = new ArrayList<>();
+        for (int i = 0; i < threads * 4; i++) {
+            shops.add(shop("shop" + i));
+        }
+        MallIndex index = MallIndex.of(shops);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                // each thread owns every threads-th shop, so the shop lists need no locking
+                List<Shop> owned = new ArrayList<>();
+                for (int i = t; i < shops.size(); i += threads) {
+                    owned.add(shops.get(i));
+                }
+                SplittableRandom random = new SplittableRandom(t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int step = 0; step < 20_000; step++) {
+                        Shop shop = owned.get(random.nextInt(owned.size()));
+                        List<Item> items = shop.getItemList();
+                        if (!items.isEmpty() && random.nextInt(3) == 0) {
+                            index.removeItem(shop, items.remove(random.nextInt(items.size())));
+                        } else {
+                            Item item = item("item" + random.nextInt(50), random.nextInt(1, 1000));
+                            items.add(item);
+                            index.addItem(shop, item);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, Integer> minPrices = minPrices(shops);
+        Map<String, Set<Shop>> offering = shops.stream()
+            .flatMap(shop -> shop.getItemList().stream().map(item -> new SimpleEntry<>(item.getName(), shop)))
+            .collect(Collectors.groupingBy(SimpleEntry::getKey,
+                Collectors.mapping(SimpleEntry::getValue, Collectors.toSet())));
+        assertThat(index.names(), is(minPrices.keySet()));
+        for (String name : minPrices.keySet()) {
+            assertThat(name, index.minPrice(name), is(OptionalInt.of(minPrices.get(name))));
+            assertThat(name, index.shopsOffering(name), is(offering.get(name)));
+        }
+    }
+
+    /** Recomputes the cheapest price per item name from the shop lists. */
+    private static Map<String, Integer> minPrices(List<Shop> shops) {
+        return shops.stream()
+            .flatMap(shop -> shop.getItemList().stream())
+            .collect(Collectors.toMap(Item::getName, Item::getPrice, Math::min));
+    }
+
+    private static Shop shop(String name, Item... items) {
+        Shop shop = new Shop();
+        shop.setName(name);
+        List<Item> list = new ArrayList<>();
+        Collections.addAll(list, items);
+        shop.setItemList(list);
+        return shop;
+    }
+
+    private static Item item(String name, int price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+}
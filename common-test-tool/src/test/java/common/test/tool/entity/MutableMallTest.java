@@ -0,0 +1,169 @@
+package common.test.tool.entity;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+import common.test.tool.dataset.MallGenerator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MutableMallTest extends ClassicOnlineStore {
+
+    @Test
+    public void aggregatesMatchAFullRecomputation() {
+        MutableMall mutable = MutableMall.of(new MallGenerator(3).catalogSize(200).shops(20, 30).customers(500)
+            .generate());
+        MutableMall.IntStatistics<Item> prices = mutable.itemStatistics(Item::getPrice);
+        MutableMall.GroupCounts<Item, String> names = mutable.itemCounts(Item::getName);
+        MutableMall.IntStatistics<Customer> budgets = mutable.customerStatistics(Customer::getBudget);
+        MutableMall.GroupCounts<Customer, Integer> ages = mutable.customerCounts(Customer::getAge);
+        SplittableRandom random = new SplittableRandom(17);
+
+        for (int step = 0; step < 5_000; step++) {
+            List<Shop> shops = mutable.getShopList();
+            Shop shop = shops.get(random.nextInt(shops.size()));
+            List<Item> items = shop.getItemList();
+            switch (random.nextInt(8)) {
+                case 0:
+                    if (shops.size() > 1) {
+                        mutable.removeShop(shop);
+                    }
+                    break;
+                case 1:
+                    mutable.addShop(shop("shop" + step, item("item" + random.nextInt(300), random.nextInt(1, 5000))));
+                    break;
+                case 2:
+                    Customer customer = mutable.getCustomerList().get(random.nextInt(mutable.getCustomerList().size()));
+                    mutable.removeCustomer(customer);
+                    mutable.addCustomer(customer(random.nextInt(18, 80), random.nextInt(0, 20_000)));
+                    break;
+                case 3:
+                case 4:
+                    if (!items.isEmpty()) {
+                        mutable.removeItem(shop, items.get(random.nextInt(items.size())));
+                    }
+                    break;
+                case 5:
+                    if (!items.isEmpty()) {
+                        mutable.changePrice(shop, items.get(random.nextInt(items.size())), random.nextInt(1, 5000));
+                    }
+                    break;
+                default:
+                    mutable.addItem(shop, item("item" + random.nextInt(300), random.nextInt(1, 5000)));
+            }
+        }
+
+        List<Item> allItems = mutable.getShopList().stream()
+            .flatMap(shop -> shop.getItemList().stream())
+            .collect(Collectors.toList());
+        assertStatistics(prices, allItems.stream().mapToInt(Item::getPrice).summaryStatistics());
+        assertThat(names.toMap(), is(counts(allItems, Item::getName)));
+        assertStatistics(budgets, mutable.getCustomerList().stream().mapToInt(Customer::getBudget).summaryStatistics());
+        assertThat(ages.toMap(), is(counts(mutable.getCustomerList(), Customer::getAge)));
+
+        Map<String, Integer> minPrices = allItems.stream()
+            .collect(Collectors.toMap(Item::getName, Item::getPrice, Math::min));
+        assertThat(mutable.index().names(), is(minPrices.keySet()));
+        minPrices.forEach((name, price) -> assertThat(name, mutable.index().minPrice(name), is(OptionalInt.of(price))));
+        assertThat(mutable.getVersion(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void itemListsCanOnlyChangeThroughTheMall() {
+        MutableMall mutable = MutableMall.of(mall);
+        Shop shop = mutable.getShopList().get(0);
+        Item item = shop.getItemList().get(0);
+
+        try {
+            shop.getItemList().remove(0);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+            // read-only
+        }
+        mutable.removeItem(shop, item);
+        assertThat(shop.getItemList(), not(hasItem(sameInstance(item))));
+        assertThat(mutable.toMall().getShopList().get(0).getItemList(), hasSize(shop.getItemList().size()));
+    }
+
+    @Test
+    public void rejectsForeignAndDuplicateElements() {
+        MutableMall mutable = MutableMall.of(mall);
+        Shop first = mutable.getShopList().get(0);
+        Shop second = mutable.getShopList().get(1);
+        Item item = first.getItemList().get(0);
+        Customer customer = mutable.getCustomerList().get(0);
+        long version = mutable.getVersion();
+
+        assertRejected(() -> mutable.removeItem(second, item));
+        assertRejected(() -> mutable.changePrice(second, item, 1));
+        assertRejected(() -> mutable.addItem(second, item));
+        assertRejected(() -> mutable.addShop(first));
+        assertRejected(() -> mutable.addShop(shop("copy", item)));
+        assertRejected(() -> mutable.removeShop(shop("stranger")));
+        assertRejected(() -> mutable.addCustomer(customer));
+        assertRejected(() -> mutable.removeCustomer(customer(30, 100)));
+        assertThat(mutable.getVersion(), is(version));
+
+        mutable.removeShop(first);
+        mutable.addItem(second, item);
+        assertThat(mutable.getShopList(), not(hasItem(sameInstance(first))));
+        assertThat(second.getItemList(), hasItem(sameInstance(item)));
+    }
+
+    private static void assertStatistics(MutableMall.IntStatistics<?> live, IntSummaryStatistics expected) {
+        assertThat(live.getCount(), is(expected.getCount()));
+        assertThat(live.getSum(), is(expected.getSum()));
+        assertThat(live.getMin(), is(expected.getCount() == 0 ? OptionalInt.empty() : OptionalInt.of(expected.getMin())));
+        assertThat(live.getMax(), is(expected.getCount() == 0 ? OptionalInt.empty() : OptionalInt.of(expected.getMax())));
+        assertThat(live.getAverage(), is(expected.getAverage()));
+    }
+
+    private static <T, K> Map<K, Long> counts(List<T> elements, Function<T, K> group) {
+        return elements.stream().collect(Collectors.groupingBy(group, Collectors.counting()));
+    }
+
+    private static void assertRejected(Runnable change) {
+        try {
+            change.run();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // not applied
+        }
+    }
+
+    private static Shop shop(String name, Item... items) {
+        Shop shop = new Shop();
+        shop.setName(name);
+        List<Item> list = new ArrayList<>();
+        for (Item item : items) {
+            list.add(item);
+        }
+        shop.setItemList(list);
+        return shop;
+    }
+
+    private static Item item(String name, int price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+
+    private static Customer customer(int age, int budget) {
+        Customer customer = new Customer();
+        customer.setName("customer" + age + "-" + budget);
+        customer.setAge(age);
+        customer.setBudget(budget);
+        return customer;
+    }
+}
@@ -0,0 +1,125 @@
+package common.test.tool.entity;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class NameDictionaryTest extends ClassicOnlineStore {
+
+    @Test
+    public void internAssignsDenseIdsInFirstSeenOrder() {
+        NameDictionary dictionary = new NameDictionary();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            names.add(i % 3 == 0 ? "na\u00efve " + i : "item" + i);
+        }
+        for (int i = 0; i < names.size(); i++) {
+            assertThat(dictionary.intern(names.get(i)), is(i));
+        }
+
+        assertThat(dictionary.size(), is(1000));
+        for (int i = 0; i < names.size(); i++) {
+            assertThat(dictionary.intern(new String(names.get(i))), is(i));
+            assertThat(dictionary.id(names.get(i)), is(i));
+            assertThat(dictionary.name(i), is(names.get(i)));
+        }
+        assertThat(dictionary.id("naive 0"), is(NameDictionary.NO_ID));
+        assertThat(dictionary.id(null), is(NameDictionary.NO_ID));
+        assertThat(dictionary.offset(dictionary.size()), is(dictionary.arenaLength()));
+    }
+
+    @Test
+    public void indexCopiesAReadOnlyMall() {
+        NameDictionary.IndexedMall indexed = NameDictionary.index(mall);
+        NameDictionary dictionary = indexed.dictionary();
+
+        assertThat(indexed.getShopList(), hasSize(mall.getShopList().size()));
+        assertThat(indexed.getCustomerList(), hasSize(mall.getCustomerList().size()));
+        for (int i = 0; i < mall.getShopList().size(); i++) {
+            Shop source = mall.getShopList().get(i);
+            Shop copy = indexed.getShopList().get(i);
+            assertThat(source.getNameId(), is(NameDictionary.NO_ID));
+            assertThat(copy, is(not(sameInstance(source))));
+            assertThat(dictionary.name(copy.getNameId()), is(source.getName()));
+            for (int j = 0; j < source.getItemList().size(); j++) {
+                Item item = copy.getItemList().get(j);
+                assertThat(item.getName(), is(source.getItemList().get(j).getName()));
+                assertThat(item.getPrice(), is(source.getItemList().get(j).getPrice()));
+                assertThat(dictionary.name(item.getNameId()), is(item.getName()));
+            }
+        }
+        for (int i = 0; i < mall.getCustomerList().size(); i++) {
+            Customer source = mall.getCustomerList().get(i);
+            Customer copy = indexed.getCustomerList().get(i);
+            assertThat(copy.getName(), is(source.getName()));
+            assertThat(copy.getAge(), is(source.getAge()));
+            assertThat(copy.getBudget(), is(source.getBudget()));
+            assertThat(copy.getWantToBuy(), hasSize(source.getWantToBuy().size()));
+        }
+    }
+
+    @Test
+    public void equalNamesShareIdAndInstance() {
+        Shop first = shop(new String("Electrics"), item(new String("chair"), 600));
+        Shop second = shop(new String("Electrics"), item(new String("chair"), 900), item("desk", 2000));
+        Customer customer = new Customer();
+        customer.setName("Joe");
+        customer.setWantToBuy(Collections.singletonList(item(new String("chair"), 0)));
+
+        NameDictionary.IndexedMall indexed = NameDictionary.index(mall(Arrays.asList(first, second), customer));
+
+        Shop a = indexed.getShopList().get(0);
+        Shop b = indexed.getShopList().get(1);
+        Item wanted = indexed.getCustomerList().get(0).getWantToBuy().get(0);
+        assertThat(b.getNameId(), is(a.getNameId()));
+        assertThat(b.getName(), is(sameInstance(a.getName())));
+        assertThat(wanted.getNameId(), is(a.getItemList().get(0).getNameId()));
+        assertThat(wanted.getName(), is(sameInstance(b.getItemList().get(0).getName())));
+        assertThat(indexed.dictionary().size(), is(4));
+    }
+
+    @Test
+    public void nullNamesAndListsAreKept() {
+        Shop unnamed = shop(null, item(null, 10));
+        Customer customer = new Customer();
+        customer.setName("Joe");
+
+        NameDictionary.IndexedMall indexed = NameDictionary.index(mall(Collections.singletonList(unnamed), customer));
+
+        Shop shop = indexed.getShopList().get(0);
+        assertThat(shop.getName(), is(nullValue()));
+        assertThat(shop.getNameId(), is(NameDictionary.NO_ID));
+        assertThat(shop.getItemList().get(0).getNameId(), is(NameDictionary.NO_ID));
+        assertThat(indexed.getCustomerList().get(0).getWantToBuy(), is(nullValue()));
+        assertThat(indexed.dictionary().size(), is(1));
+    }
+
+    private static OnlineShoppingMall mall(List<Shop> shops, Customer customer) {
+        OnlineShoppingMall mall = new OnlineShoppingMall();
+        mall.setShopList(shops);
+        mall.setCustomerList(Collections.singletonList(customer));
+        return mall;
+    }
+
+    private static Shop shop(String name, Item... items) {
+        Shop shop = new Shop();
+        shop.setName(name);
+        shop.setItemList(Arrays.asList(items));
+        return shop;
+    }
+
+    private static Item item(String name, int price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+}
@@ -0,0 +1,103 @@
+package common.test.tool.query;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.MallIndex;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class AffordabilityEngineTest extends ClassicOnlineStore {
+
+    @Test
+    public void classicStore() {
+        AffordabilityEngine engine = new AffordabilityEngine(mall.getShopList());
+
+        List<String> affordable = engine.affordable(mall.getCustomerList()).stream()
+            .map(Customer::getName)
+            .collect(Collectors.toList());
+
+        assertThat(affordable, is(affordableByStreams(mall)));
+        Customer joe = mall.getCustomerList().get(0);
+        assertThat(engine.basketPrice(joe), is(2800L + 680 + 210));
+        assertThat(engine.shortfall(joe), is(0L));
+    }
+
+    @Test
+    public void missingBudgetAndWishListCountAsZeroAndEmpty() {
+        AffordabilityEngine engine = new AffordabilityEngine(mall.getShopList());
+        Customer noWishes = new Customer();
+        noWishes.setName("noWishes");
+        Customer noBudget = new Customer();
+        noBudget.setName("noBudget");
+        noBudget.setWantToBuy(mall.getCustomerList().get(0).getWantToBuy());
+
+        assertThat(engine.basketPrice(noWishes), is(0L));
+        assertThat(engine.shortfall(noWishes), is(0L));
+        assertThat(engine.shortfall(noBudget), is(2800L + 680 + 210));
+        assertThat(engine.affordable(Arrays.asList(noWishes, noBudget)), contains(sameInstance(noWishes)));
+    }
+
+    @Test
+    public void parallelRangesMatchTheCallingThread() {
+        OnlineShoppingMall generated = new MallGenerator(7)
+            .catalogSize(500)
+            .shops(20, 40)
+            .customers(20_000)
+            .generate();
+        MallIndex index = MallIndex.of(generated.getShopList());
+        List<Customer> customers = generated.getCustomerList();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            long[] serial = new AffordabilityEngine(index, pool, Integer.MAX_VALUE).shortfalls(customers);
+            long[] parallel = new AffordabilityEngine(index, pool, 100).shortfalls(customers);
+
+            assertThat(parallel, is(serial));
+            Map<String, Integer> cheapest = cheapestPrices(generated);
+            for (int i = 0; i < customers.size(); i++) {
+                assertThat(serial[i], is(Math.max(0, basketPrice(cheapest, customers.get(i))
+                    - customers.get(i).getBudget())));
+            }
+            assertThat(new AffordabilityEngine(index, pool, 100).affordable(customers).stream()
+                .map(Customer::getName).collect(Collectors.toList()), is(affordableByStreams(generated)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveThreshold() {
+        new AffordabilityEngine(new MallIndex(), ForkJoinPool.commonPool(), 0);
+    }
+
+    private static List<String> affordableByStreams(OnlineShoppingMall mall) {
+        Map<String, Integer> cheapest = cheapestPrices(mall);
+        return mall.getCustomerList().stream()
+            .filter(customer -> basketPrice(cheapest, customer) <= customer.getBudget())
+            .map(Customer::getName)
+            .collect(Collectors.toList());
+    }
+
+    private static Map<String, Integer> cheapestPrices(OnlineShoppingMall mall) {
+        return mall.getShopList().stream()
+            .map(Shop::getItemList)
+            .flatMap(List::stream)
+            .collect(Collectors.toMap(Item::getName, Item::getPrice, Math::min));
+    }
+
+    private static long basketPrice(Map<String, Integer> cheapest, Customer customer) {
+        return customer.getWantToBuy().stream().mapToLong(item -> cheapest.getOrDefault(item.getName(), 0)).sum();
+    }
+}
@@ -0,0 +1,224 @@
+package common.test.tool.query;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.NameDictionary;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static common.test.tool.query.Condition.atMost;
+import static common.test.tool.query.Condition.equalTo;
+import static common.test.tool.query.Condition.greaterThan;
+import static common.test.tool.query.Condition.notEqualTo;
+import static common.test.tool.query.MallColumn.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MallQueryTest extends ClassicOnlineStore {
+
+    @Test
+    public void filterAndProject() {
+        List<String> rich = MallQuery.customers().where(greaterThan(BUDGET, 10000)).select(CUSTOMER_NAME).run(mall);
+        assertThat(rich, contains("Diana", "Andrew"));
+        assertThat(MallQuery.customers().select(AGE).run(mall), contains(22, 27, 28, 38, 26, 22, 32, 35, 21, 36));
+    }
+
+    @Test
+    public void orderDistinctAndLimit() {
+        assertThat(MallQuery.customers().orderByDescending(AGE).select(AGE).run(mall),
+            contains(38, 36, 35, 32, 28, 27, 26, 22, 22, 21));
+        assertThat(MallQuery.customers().orderByDescending(BUDGET).limit(3).select(CUSTOMER_NAME).run(mall),
+            contains("Diana", "Andrew", "Chris"));
+        assertThat(MallQuery.customers().distinct().select(AGE).run(mall), contains(22, 27, 28, 38, 26, 32, 35, 21, 36));
+    }
+
+    @Test
+    public void aggregates() {
+        assertThat(MallQuery.wantedItems().count().run(mall), is(32L));
+        assertThat(MallQuery.customers().max(BUDGET).run(mall).getAsInt(), is(12000));
+        assertThat(MallQuery.customers().average(AGE).run(mall).getAsDouble(), is(28.7));
+        assertThat(MallQuery.shopItems().sum(PRICE).run(mall), is(60930L));
+        assertThat(MallQuery.customers().where(greaterThan(AGE, 40)).exists().run(mall), is(false));
+        Map<Integer, Long> ages = MallQuery.customers().countBy(AGE).run(mall);
+        assertThat(ages, is(mall.getCustomerList().stream()
+            .collect(Collectors.groupingBy(Customer::getAge, Collectors.counting()))));
+    }
+
+    @Test
+    public void joinOnItemName() {
+        List<String> notOnSale = MallQuery.wantedItems().notOnSale().distinct().select(ITEM_NAME).run(mall);
+        assertThat(notOnSale, containsInAnyOrder("bag", "pants", "coat"));
+
+        List<String> affordable = MallQuery.customers()
+            .withBasketPrice()
+            .where(atMost(BASKET_PRICE, BUDGET))
+            .select(CUSTOMER_NAME)
+            .run(mall);
+        assertThat(affordable, contains("Joe", "Patrick", "Chris", "Kathy", "Alice", "Andrew", "Amy"));
+    }
+
+    @Test
+    public void matchesStreamsOnGeneratedMall() {
+        OnlineShoppingMall big = new MallGenerator(11).catalogSize(500).shops(20, 100).customers(20_000).generate();
+        Map<String, Integer> cheapest = big.getShopList().stream()
+            .flatMap(shop -> shop.getItemList().stream())
+            .collect(Collectors.toMap(Item::getName, Item::getPrice, Math::min));
+        Function<Customer, Integer> basket = customer -> customer.getWantToBuy().stream()
+            .mapToInt(item -> cheapest.getOrDefault(item.getName(), 0))
+            .sum();
+
+        List<String> expected = big.getCustomerList().stream()
+            .filter(customer -> basket.apply(customer) <= customer.getBudget())
+            .sorted(Comparator.comparing(basket).reversed())
+            .map(Customer::getName)
+            .limit(100)
+            .collect(Collectors.toList());
+        List<String> actual = MallQuery.customers()
+            .withBasketPrice()
+            .where(atMost(BASKET_PRICE, BUDGET))
+            .orderByDescending(BASKET_PRICE)
+            .limit(100)
+            .select(CUSTOMER_NAME)
+            .run(big);
+        assertThat(actual, is(expected));
+
+        Map<String, Long> expectedSums = big.getShopList().stream()
+            .collect(Collectors.groupingBy(Shop::getName,
+                Collectors.summingLong(shop -> shop.getItemList().stream().mapToLong(Item::getPrice).sum())));
+        assertThat(MallQuery.shopItems().sumBy(SHOP_NAME, PRICE).run(big), is(expectedSums));
+
+        Set<String> onSale = cheapest.keySet();
+        long wantedOnSale = big.getCustomerList().stream()
+            .flatMap(customer -> customer.getWantToBuy().stream())
+            .filter(item -> onSale.contains(item.getName()))
+            .count();
+        assertThat(MallQuery.wantedItems().onSale().count().run(big), is(wantedOnSale));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsColumnsOfOtherSources() {
+        MallQuery.customers().select(PRICE);
+    }
+
+    @Test
+    public void indexedMallJoinsOnNameIds() {
+        OnlineShoppingMall big = new MallGenerator(5).catalogSize(300).shops(10, 60).customers(2_000).generate();
+        NameDictionary.IndexedMall indexed = NameDictionary.index(big);
+        MallQuery affordable = MallQuery.customers().withBasketPrice().where(atMost(BASKET_PRICE, BUDGET));
+
+        assertThat(affordable.select(CUSTOMER_NAME).run(indexed), is(affordable.select(CUSTOMER_NAME).run(big)));
+        assertThat(MallQuery.wantedItems().onSale().count().run(indexed),
+            is(MallQuery.wantedItems().onSale().count().run(big)));
+        QueryPlan<Long> onSale = MallQuery.wantedItems().onSale().count();
+        assertThat(onSale.explain(indexed), containsString("on item.name (array lookup by item.nameId)"));
+        assertThat(onSale.explain(indexed), containsString("catalog price array indexed by name id built once per run"));
+        assertThat(onSale.explain(big), containsString("(hash lookup)"));
+        assertThat(onSale.explain(big), containsString("catalog hash table built once per run"));
+        assertThat(MallQuery.wantedItems().withCheapestPrice().sum(CHEAPEST_PRICE).run(indexed),
+            is(MallQuery.wantedItems().withCheapestPrice().sum(CHEAPEST_PRICE).run(big)));
+
+        // an item added after indexing has no id and is resolved by name
+        Item chair = new Item();
+        chair.setName(indexed.getShopList().get(0).getItemList().get(0).getName());
+        indexed.getCustomerList().get(0).getWantToBuy().add(chair);
+        assertThat(chair.getNameId(), is(NameDictionary.NO_ID));
+        assertThat(MallQuery.wantedItems().onSale().count().run(indexed),
+            is(MallQuery.wantedItems().onSale().count().run(big) + 1));
+
+        // a name the dictionary lacks falls back to the join on names
+        Item novelty = new Item();
+        novelty.setName("novelty");
+        novelty.setPrice(1);
+        indexed.getShopList().get(0).getItemList().add(novelty);
+        Item wanted = new Item();
+        wanted.setName("novelty");
+        indexed.getCustomerList().get(0).getWantToBuy().add(wanted);
+        assertThat(MallQuery.wantedItems().onSale().count().run(indexed),
+            is(MallQuery.wantedItems().onSale().count().run(big) + 2));
+        assertThat(onSale.explain(indexed), containsString("(hash lookup)"));
+    }
+
+    @Test
+    public void textComparedWithNullMatchesMissingNames() {
+        Customer unnamed = new Customer();
+        unnamed.setAge(40);
+        unnamed.setBudget(0);
+        OnlineShoppingMall withUnnamed = new OnlineShoppingMall();
+        withUnnamed.setShopList(mall.getShopList());
+        withUnnamed.setCustomerList(Arrays.asList(mall.getCustomerList().get(0), unnamed));
+
+        assertThat(MallQuery.customers().where(equalTo(CUSTOMER_NAME, null)).select(AGE).run(withUnnamed),
+            contains(40));
+        assertThat(MallQuery.customers().where(notEqualTo(CUSTOMER_NAME, null)).select(CUSTOMER_NAME)
+            .run(withUnnamed), contains("Joe"));
+        assertThat(MallQuery.customers().where(equalTo(CUSTOMER_NAME, "Joe")).count().run(withUnnamed), is(1L));
+        assertThat(equalTo(CUSTOMER_NAME, null).toString(), is("customer.name = null"));
+    }
+
+    @Test
+    public void basketPricesBeyondTheIntRangeAreNotAffordable() {
+        Shop shop = new Shop();
+        shop.setName("jewels");
+        shop.setItemList(Arrays.asList(item("ring", 1_500_000_000), item("crown", 1_500_000_000)));
+        Shop closed = new Shop();
+        closed.setName("closed");
+        Customer rich = new Customer();
+        rich.setName("rich");
+        rich.setAge(60);
+        rich.setBudget(Integer.MAX_VALUE);
+        rich.setWantToBuy(Arrays.asList(item("ring", 0), item("crown", 0), item("ring", 0)));
+        OnlineShoppingMall jewels = new OnlineShoppingMall();
+        jewels.setShopList(Arrays.asList(shop, closed));
+        jewels.setCustomerList(Collections.singletonList(rich));
+
+        MallQuery baskets = MallQuery.customers().withBasketPrice();
+        assertThat(baskets.where(atMost(BASKET_PRICE, BUDGET)).count().run(jewels), is(0L));
+        assertThat(MallQuery.customers().withBasketPrice().sum(BASKET_PRICE).run(jewels), is(4_500_000_000L));
+        assertThat(MallQuery.customers().withBasketPrice().select(BASKET_PRICE).run(jewels),
+            contains(Integer.MAX_VALUE));
+        // the shop without an item list is skipped by the scan and the join
+        assertThat(MallQuery.shopItems().sumBy(SHOP_NAME, PRICE).run(jewels),
+            is(Collections.singletonMap("jewels", 3_000_000_000L)));
+        assertThat(MallQuery.wantedItems().onSale().count().run(jewels), is(3L));
+    }
+
+    @Test
+    public void explainDoesNotDependOnTheDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertThat(MallQuery.customers().min(AGE).explain(), startsWith("min(customer.age)"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void explainShowsFusedPlan() {
+        String plan = MallQuery.wantedItems().notOnSale().distinct().select(ITEM_NAME).explain();
+        assertThat(plan, startsWith("select item.name into list"));
+        assertThat(plan, containsString("anti-join shop items on item.name"));
+        assertThat(plan, containsString("1 fused loop"));
+    }
+
+    private static Item item(String name, int price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+}
@@ -0,0 +1,133 @@
+package common.test.tool.query;
+
+import common.test.tool.dataset.MallSnapshot;
+import common.test.tool.entity.MutableMall;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static common.test.tool.query.Condition.greaterThan;
+import static common.test.tool.query.MallColumn.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class QueryCacheTest {
+
+    private static final QueryPlan<List<String>> RICH =
+        MallQuery.customers().where(greaterThan(BUDGET, 10000)).select(CUSTOMER_NAME);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rewrittenSnapshotFileMisses() throws IOException {
+        File file = folder.newFile("data.xml");
+        Files.copy(Paths.get("src/test/resources/data.xml"), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        MallSnapshot snapshot = MallSnapshot.of(file);
+        QueryCache cache = new QueryCache(10);
+
+        assertThat(cache.get(RICH, snapshot), contains("Diana", "Andrew"));
+        assertThat(cache.get(RICH, snapshot), contains("Diana", "Andrew"));
+        assertThat(cache.stats().getHitCount(), is(1L));
+
+        String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Files.write(file.toPath(), xml.replace("Diana", "Dorothy").getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(file.lastModified() + 60_000));
+
+        assertThat(cache.get(RICH, snapshot), contains("Dorothy", "Andrew"));
+        assertThat(cache.stats().getMissCount(), is(2L));
+        assertThat(cache.stats().getStaleCount(), is(1L));
+        assertThat(snapshot.getLoadCount(), is(2L));
+        assertThat(cache.get(RICH, snapshot), contains("Dorothy", "Andrew"));
+        assertThat(cache.stats().getHitCount(), is(2L));
+    }
+
+    @Test
+    public void mutationInvalidatesResults() {
+        MutableMall mall = MutableMall.of(MallSnapshot.of(new File("src/test/resources/data.xml")).get());
+        QueryCache cache = new QueryCache(10);
+        QueryPlan<Long> count = MallQuery.customers().count();
+
+        assertThat(cache.get(count, mall), is(10L));
+        mall.removeCustomer(mall.getCustomerList().get(0));
+
+        assertThat(cache.get(count, mall), is(9L));
+        assertThat(cache.get(count, mall), is(9L));
+        assertThat(cache.stats().getStaleCount(), is(1L));
+        assertThat(cache.stats().getHitCount(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        QueryCache cache = new QueryCache(2);
+        cache.get("a", 1, () -> "A");
+        cache.get("b", 1, () -> "B");
+        cache.get("a", 1, () -> "not loaded");
+        cache.get("c", 1, () -> "C");
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.stats().getEvictionCount(), is(1L));
+        assertThat(cache.get("a", 1, () -> "reloaded"), is("A"));
+        assertThat(cache.get("b", 1, () -> "reloaded"), is("reloaded"));
+    }
+
+    @Test
+    public void weightsAreAccounted() {
+        QueryCache cache = new QueryCache(10, value -> ((List<?>) value).size());
+
+        cache.get("four", 1, () -> Arrays.asList(1, 2, 3, 4));
+        cache.get("three", 1, () -> Arrays.asList(1, 2, 3));
+        assertThat(cache.weight(), is(7L));
+
+        // a new version replaces the entry and its weight
+        cache.get("four", 2, () -> Arrays.asList(1, 2));
+        assertThat(cache.weight(), is(5L));
+
+        // too heavy to cache at all
+        assertThat(cache.get("eleven", 1, () -> Collections.nCopies(11, 0)), hasSize(11));
+        assertThat(cache.size(), is(2));
+
+        cache.get("six", 1, () -> Collections.nCopies(6, 0));
+        assertThat(cache.weight(), is(8L));
+        assertThat(cache.stats().getEvictionCount(), is(1L));
+        cache.invalidate("four");
+        assertThat(cache.weight(), is(6L));
+        cache.invalidateAll();
+        assertThat(cache.weight(), is(0L));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void nullIsNotCached() {
+        QueryCache cache = new QueryCache(10);
+        assertThat(cache.get("q", 1, () -> null), is(nullValue()));
+        assertThat(cache.get("q", 1, () -> "loaded"), is("loaded"));
+        assertThat(cache.stats().getMissCount(), is(2L));
+    }
+
+    @Test
+    public void slowLoadOfAnOldVersionKeepsTheNewerEntry() {
+        QueryCache cache = new QueryCache(10);
+
+        // while version 1 loads outside the lock, another caller stores version 2
+        String old = cache.get("q", 1, () -> {
+            assertThat(cache.get("q", 2, () -> "new"), is("new"));
+            return "old";
+        });
+
+        assertThat(old, is("old"));
+        assertThat(cache.get("q", 2, () -> "reloaded"), is("new"));
+        assertThat(cache.stats().getHitCount(), is(1L));
+    }
+}
@@ -0,0 +1,141 @@
+package common.test.tool.query;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class QueryExecutorTest {
+
+    @Test
+    public void parallelStreamsRunOnTheExecutorsWorkers() {
+        try (QueryExecutor executor = new QueryExecutor("analytics", 2)) {
+            QueryExecutor.QueryResult<Set<String>> result = executor.measure(() -> IntStream.range(0, 100_000)
+                .parallel()
+                .mapToObj(i -> Thread.currentThread().getName())
+                .collect(Collectors.toSet()));
+
+            assertThat(result.getValue(), everyItem(startsWith("analytics-p2-worker-")));
+            assertThat(result.getStats().getParallelism(), is(2));
+            assertThat(result.getStats().getWallNanos(), is(greaterThan(0L)));
+            assertThat(result.getStats().getCpuNanos(), is(greaterThanOrEqualTo(-1L)));
+            assertThat(executor.getQueryCount(), is(1L));
+            assertThat(executor.getTotalWallNanos(), is(result.getStats().getWallNanos()));
+        }
+    }
+
+    @Test
+    public void parallelismIsCappedAtTheExecutorsLimit() {
+        try (QueryExecutor executor = new QueryExecutor("capped", 3)) {
+            assertThat(executor.measure(1, () -> 1).getStats().getParallelism(), is(1));
+            assertThat(executor.measure(64, () -> 1).getStats().getParallelism(), is(3));
+            assertThat(executor.execute(() -> Thread.currentThread().getName()), startsWith("capped-p3-worker-"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveParallelism() {
+        try (QueryExecutor executor = new QueryExecutor("invalid", 2)) {
+            executor.execute(0, () -> 1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsParallelismAboveTheForkJoinLimit() {
+        new QueryExecutor("invalid", 0x8000);
+    }
+
+    @Test
+    public void closedExecutorRejectsQueries() {
+        QueryExecutor executor = new QueryExecutor("closed", 2);
+        executor.execute(() -> 1);
+        executor.close();
+
+        assertTrue(executor.isShutdown());
+        try {
+            executor.execute(() -> 1);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertThat(expected.getMessage(), containsString("closed"));
+        }
+    }
+
+    @Test
+    public void queriesOfEveryLevelShareTheExecutorsWorkers() throws Exception {
+        int threads = 4;
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        Set<String> workerNames = ConcurrentHashMap.newKeySet();
+        try (QueryExecutor executor = new QueryExecutor("shared", 3)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int parallelism = t + 1;
+                futures.add(callers.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        assertThat(executor.measure(parallelism, () -> IntStream.range(0, 20_000)
+                            .parallel()
+                            .mapToObj(i -> workerNames.add(Thread.currentThread().getName()))
+                            .count()).getStats().getParallelism(), is(Math.min(parallelism, 3)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertThat(workerNames, everyItem(startsWith("shared-p3-worker-")));
+            assertThat(workerNames.size(), is(lessThanOrEqualTo(3)));
+            assertThat(executor.workerCount(), is(lessThanOrEqualTo(3)));
+            assertThat(executor.getQueryCount(), is(80L));
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    public void closeRacingQueriesLeavesThePoolShutDown() throws Exception {
+        int threads = 4;
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                QueryExecutor executor = new QueryExecutor("race" + round, 64);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int first = t * 16 + 1;
+                    futures.add(callers.submit(() -> {
+                        start.await();
+                        for (int parallelism = first; parallelism < first + 16; parallelism++) {
+                            try {
+                                executor.execute(parallelism, () -> 1);
+                            } catch (IllegalStateException closed) {
+                                return null;
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                executor.close();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                assertTrue("round " + round, executor.isShutdown());
+            }
+        } finally {
+            callers.shutdown();
+        }
+    }
+}
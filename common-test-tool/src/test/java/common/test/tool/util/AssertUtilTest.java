@@ -0,0 +1,72 @@
+package common.test.tool.util;
+
+import org.junit.Test;
+
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class AssertUtilTest {
+
+    @Test
+    public void nonCapturingLambda() {
+        Supplier<Supplier<Object>> factory = () -> () -> null;
+
+        assertTrue(AssertUtil.isLambda(factory.get()));
+        assertFalse(AssertUtil.isCapturing(factory.get()));
+        assertThat(AssertUtil.capturedFields(factory.get()), is(empty()));
+        assertThat(AssertUtil.shallowSize(factory.get()), is(16L));
+        assertThat(AssertUtil.deepSize(factory.get()), is(16L));
+        assertTrue(AssertUtil.isSameInstance(factory));
+        AssertUtil.assertNonCapturing(factory.get());
+        AssertUtil.assertSameInstance(factory);
+    }
+
+    @Test
+    public void capturingLambdaCountsTheCapturedGraph() {
+        long scale = 3;
+        int[] values = new int[100];
+        IntSupplier lambda = () -> (int) scale * values.length;
+
+        assertTrue(AssertUtil.isCapturing(lambda));
+        assertThat(AssertUtil.capturedFields(lambda), containsInAnyOrder("arg$1: long", "arg$2: [I"));
+        // header 12 + long 8 + reference 4
+        assertThat(AssertUtil.shallowSize(lambda), is(24L));
+        // plus the array: header 16 + 100 ints
+        assertThat(AssertUtil.deepSize(lambda), is(24L + 16 + 400));
+    }
+
+    @Test
+    public void sharedObjectsAreCountedOnce() {
+        int[] shared = new int[2];
+        Object[] twice = {shared, shared, null};
+        Supplier<Object> lambda = () -> twice;
+
+        // lambda 16, Object[3] 16 + 12 -> 32, int[2] 16 + 8 -> 24
+        assertThat(AssertUtil.deepSize(lambda), is(16L + 32 + 24));
+    }
+
+    @Test
+    public void capturingLambdaFailsTheAssertions() {
+        int[] values = new int[100];
+        Supplier<IntSupplier> factory = () -> () -> values.length;
+
+        assertFalse(AssertUtil.isSameInstance(factory));
+        try {
+            AssertUtil.assertNonCapturing(factory.get());
+            fail();
+        } catch (AssertionError expected) {
+            assertThat(expected.getMessage(), containsString("arg$1: [I"));
+            assertThat(expected.getMessage(), containsString("16 bytes per evaluation, 432 bytes reachable"));
+        }
+        try {
+            AssertUtil.assertSameInstance(factory);
+            fail();
+        } catch (AssertionError expected) {
+            assertThat(expected.getMessage(), containsString("new "));
+            assertThat(expected.getMessage(), containsString("capturing [arg$1: [I]"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package common.test.tool.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class BitRangesTest {
+
+    @Test
+    public void rangeListRoundTrip() {
+        BitSet bits = BitRanges.parseRangeList("7,1-3,5, 9 - 11,64-65");
+
+        assertThat(BitRanges.toRangeList(bits), is("1-3,5,7,9-11,64-65"));
+        assertThat(BitRanges.parseRangeList(BitRanges.toRangeList(bits)), is(bits));
+        assertThat(BitRanges.parseRangeList("").isEmpty(), is(true));
+    }
+
+    @Test
+    public void wordsRoundTrip() {
+        long[] words = BitRanges.parseWords("1,3,64-65,128");
+
+        assertThat(words, is(new long[] {0x8000_0000_0000_0005L, 0x8000_0000_0000_0001L}));
+        assertThat(BitRanges.toRangeList(BitSet.valueOf(words)), is("1,3,64-65,128"));
+        assertThat(Arrays.stream("1,3,64-65,128".split(",")).collect(BitRanges.toWords()), is(words));
+        assertThat(BitRanges.parseWords(""), is(new long[0]));
+    }
+
+    @Test
+    public void randomListsRoundTripThroughAllForms() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int round = 0; round < 200; round++) {
+            BitSet expected = new BitSet();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                int from = random.nextInt(1000);
+                expected.set(from, from + 1 + random.nextInt(100));
+            }
+            String list = BitRanges.toRangeList(expected);
+            List<String> tokens = list.isEmpty() ? Arrays.asList() : Arrays.asList(list.split(","));
+
+            assertThat(BitRanges.parseRangeList(list), is(expected));
+            assertThat(tokens.parallelStream().collect(BitRanges.toBitSet()), is(expected));
+            assertThat(BitSet.valueOf(tokens.parallelStream().collect(BitRanges.toWords())), is(expected));
+            assertThat(tokens.stream().collect(BitRanges.toBitString()),
+                is(BitRanges.writeBitString(expected, new StringBuilder()).toString()));
+        }
+    }
+
+    @Test
+    public void bitStringOfCollectedTokens() {
+        assertThat(Arrays.asList("7", "1-3", "5").stream().collect(BitRanges.toBitString()), is("1110101"));
+        assertThat(Arrays.asList("2").stream().collect(BitRanges.toBitString(new StringBuilder("x"))).toString(),
+            is("x01"));
+    }
+
+    @Test
+    public void setOperations() {
+        BitSet left = BitRanges.parseRangeList("1-5");
+        BitSet right = BitRanges.parseRangeList("4-8");
+
+        assertThat(BitRanges.toRangeList(BitRanges.union(left, right)), is("1-8"));
+        assertThat(BitRanges.toRangeList(BitRanges.intersection(left, right)), is("4-5"));
+        assertThat(BitRanges.toRangeList(BitRanges.difference(left, right)), is("1-3"));
+        assertThat(BitRanges.toRangeList(left), is("1-5"));
+    }
+
+    @Test
+    public void rejectsMalformedLists() {
+        for (String list : Arrays.asList("1,,2", "0", "3-1", "a", "1-", "2147483648", ",")) {
+            try {
+                BitRanges.parseRangeList(list);
+                fail("Accepted " + list);
+            } catch (IllegalArgumentException expected) {
+                // malformed
+            }
+        }
+    }
+}
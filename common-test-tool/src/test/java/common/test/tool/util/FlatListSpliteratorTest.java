@@ -0,0 +1,116 @@
+package common.test.tool.util;
+
+import common.test.tool.dataset.ClassicOnlineStore;
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.entity.Shop;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class FlatListSpliteratorTest extends ClassicOnlineStore {
+
+    @Test
+    public void splitsInsideOneLargeList() {
+        List<Integer> large = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        Spliterator<Integer> suffix = FlatListSpliterator.of(Collections.singletonList(large));
+
+        Spliterator<Integer> prefix = suffix.trySplit();
+
+        assertThat(prefix.estimateSize(), is(500L));
+        assertThat(suffix.estimateSize(), is(500L));
+        assertThat(drain(prefix), is(large.subList(0, 500)));
+        assertThat(drain(suffix), is(large.subList(500, 1000)));
+    }
+
+    @Test
+    public void everySplitReportsItsExactSize() {
+        List<List<Integer>> lists = Arrays.asList(
+            Arrays.asList(0, 1, 2), Collections.emptyList(), null, Arrays.asList(3), Arrays.asList(4, 5, 6, 7, 8));
+        List<Integer> expected = IntStream.range(0, 9).boxed().collect(Collectors.toList());
+        Spliterator<Integer> all = FlatListSpliterator.of(lists, list -> list);
+
+        assertThat(all.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED), is(true));
+        assertThat(all.getExactSizeIfKnown(), is(9L));
+        List<Integer> elements = new ArrayList<>();
+        splitAll(all, elements);
+        assertThat(elements, is(expected));
+    }
+
+    @Test
+    public void emptyContainers() {
+        Spliterator<Object> empty = FlatListSpliterator.of(Collections.<List<Object>>emptyList());
+
+        assertThat(empty.estimateSize(), is(0L));
+        assertThat(empty.trySplit(), is(nullValue()));
+        assertFalse(empty.tryAdvance(element -> fail()));
+    }
+
+    @Test
+    public void mallStreamsSplitAcrossItems() {
+        OnlineShoppingMall big = new MallGenerator(9).catalogSize(5_000).shops(1, 3_000).customers(1_000).generate();
+        big.getCustomerList().get(0).setWantToBuy(null);
+        List<Item> items = big.getShopList().stream()
+            .flatMap(shop -> shop.getItemList().stream())
+            .collect(Collectors.toList());
+        List<Item> wanted = big.getCustomerList().stream()
+            .filter(customer -> customer.getWantToBuy() != null)
+            .flatMap(customer -> customer.getWantToBuy().stream())
+            .collect(Collectors.toList());
+
+        Spliterator<Item> spliterator = big.itemStream().spliterator();
+        assertThat(spliterator.getExactSizeIfKnown(), is((long) items.size()));
+        Spliterator<Item> prefix = spliterator.trySplit();
+        assertThat(prefix.estimateSize() + spliterator.estimateSize(), is((long) items.size()));
+        // flatMap over the shops could not split a single shop at all
+        assertThat(prefix.estimateSize(), is(items.size() / 2L));
+        assertThat(big.itemStream().parallel().collect(Collectors.toList()), is(items));
+        assertThat(big.wantedItemStream().spliterator().getExactSizeIfKnown(), is((long) wanted.size()));
+        assertThat(big.wantedItemStream().parallel().collect(Collectors.toList()), is(wanted));
+    }
+
+    @Test
+    public void classicStoreStreams() {
+        assertThat(mall.itemStream().count(),
+            is(mall.getShopList().stream().map(Shop::getItemList).mapToLong(List::size).sum()));
+        assertThat(mall.wantedItemStream().map(Item::getName).collect(Collectors.toList()),
+            is(mall.getCustomerList().stream()
+                .map(Customer::getWantToBuy)
+                .flatMap(List::stream)
+                .map(Item::getName)
+                .collect(Collectors.toList())));
+    }
+
+    private static <T> List<T> drain(Spliterator<T> spliterator) {
+        List<T> elements = new ArrayList<>();
+        spliterator.forEachRemaining(elements::add);
+        return elements;
+    }
+
+    /** Splits down to single elements, checking that every part's size adds up, and collects them in order. */
+    private static <T> void splitAll(Spliterator<T> spliterator, List<T> elements) {
+        long size = spliterator.estimateSize();
+        Spliterator<T> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            assertThat(size, is(lessThanOrEqualTo(1L)));
+            spliterator.tryAdvance(elements::add);
+            assertFalse(spliterator.tryAdvance(elements::add));
+            return;
+        }
+        assertThat(prefix.estimateSize() + spliterator.estimateSize(), is(size));
+        splitAll(prefix, elements);
+        splitAll(spliterator, elements);
+    }
+}
@@ -0,0 +1,88 @@
+package common.test.tool.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class IntHistogramTest {
+
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void mergeStaysDenseWhenTheKeysFitButTheCapacityDoesNot() {
+        IntHistogram left = histogram(0, IntHistogram.DENSE_RANGE - 21);
+        // grown by doubling, so its array reaches well past its highest key
+        IntHistogram right = histogram(IntHistogram.DENSE_RANGE - 26, IntHistogram.DENSE_RANGE - 9);
+
+        IntHistogram merged = left.merge(right);
+
+        assertTrue(merged.isDense());
+        assertThat(merged.size(), is(4));
+        assertThat(merged.get(IntHistogram.DENSE_RANGE - 9), is(1L));
+    }
+
+    @Test
+    public void mergeStaysDenseWhenTheOtherArrayStartsBelowItsKeys() {
+        // grown downwards, so its array starts 21 keys below its lowest one
+        IntHistogram right = histogram(5000, 4990);
+        IntHistogram left = histogram(9000, 9080);
+
+        IntHistogram merged = left.merge(right);
+
+        assertTrue(merged.isDense());
+        assertThat(merged.asMap().keySet(), is(new TreeSet<>(Arrays.asList(4990, 5000, 9000, 9080))));
+    }
+
+    @Test
+    public void mergeGoesSparseWhenTheKeysSpreadTooFar() {
+        IntHistogram merged = histogram(0, 1).merge(histogram(IntHistogram.DENSE_RANGE, Integer.MIN_VALUE));
+
+        assertFalse(merged.isDense());
+        assertThat(merged.size(), is(4));
+        assertThat(merged.get(Integer.MIN_VALUE), is(1L));
+        assertThat(merged.get(2), is(0L));
+    }
+
+    @Test
+    public void parallelCountsMatchGroupingBy() {
+        for (int spread : new int[] {100, IntHistogram.DENSE_RANGE, 1_000_000}) {
+            List<Integer> keys = new SplittableRandom(spread).ints(200_000, -spread / 2, spread / 2)
+                .boxed().collect(Collectors.toList());
+            Map<Integer, Long> expected = keys.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+            for (int round = 0; round < ROUNDS; round++) {
+                assertThat(keys.parallelStream().collect(IntHistogram.countingAsMap(Integer::intValue)), is(expected));
+                IntHistogram histogram = keys.parallelStream().collect(IntHistogram.counting(Integer::intValue));
+                assertThat(histogram.asMap(), is(expected));
+                assertThat(histogram.isDense(), is(spread < IntHistogram.DENSE_RANGE));
+            }
+        }
+    }
+
+    @Test
+    public void summingMatchesGroupingBy() {
+        List<Integer> values = new SplittableRandom(1).ints(50_000, 0, 1_000_000).boxed().collect(Collectors.toList());
+
+        assertThat(values.parallelStream().collect(IntHistogram.summing(value -> value % 37, Integer::longValue)).asMap(),
+            is(values.stream().collect(Collectors.groupingBy(value -> value % 37,
+                Collectors.summingLong(Integer::longValue)))));
+    }
+
+    private static IntHistogram histogram(int... keys) {
+        IntHistogram histogram = new IntHistogram();
+        for (int key : keys) {
+            histogram.add(key, 1);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,75 @@
+package common.test.tool.util;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class JoiningCollectorsTest {
+
+    private static final int ROUNDS = 10;
+
+    /** Mostly short words, some empty, and a few longer than a whole segment. */
+    private final List<String> words = new SplittableRandom(3).ints(200_000, 0, 1000)
+        .mapToObj(n -> n == 0 ? "" : n == 1 ? repeat('x', JoiningCollectors.MAX_SEGMENT_LENGTH + 7) : "w" + n)
+        .collect(Collectors.toList());
+
+    @Test
+    public void parallelJoinKeepsEncounterOrder() {
+        String expected = words.stream().collect(Collectors.joining(", ", "[", "]"));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            assertEquals(expected, words.parallelStream().collect(JoiningCollectors.joining(", ", "[", "]")));
+        }
+        assertEquals(expected, words.parallelStream().collect(JoiningCollectors.joining(", ", "[", "]", 1)));
+    }
+
+    @Test
+    public void parallelJoinToWriter() {
+        StringWriter out = words.parallelStream()
+            .collect(JoiningCollectors.joiningTo(new StringWriter(), "|", "<", ">"));
+
+        assertEquals(words.stream().collect(Collectors.joining("|", "<", ">")), out.toString());
+    }
+
+    @Test
+    public void emptyElementsAndEmptySplits() {
+        List<String> empties = Collections.nCopies(10_000, "");
+
+        assertThat(empties.parallelStream().collect(JoiningCollectors.joining(",")),
+            is(empties.stream().collect(Collectors.joining(","))));
+        assertThat(IntStream.range(0, 10_000).parallel().filter(i -> i == 9_999).mapToObj(Integer::toString)
+            .collect(JoiningCollectors.joining(",", "(", ")")), is("(9999)"));
+        assertThat(Collections.<String>emptyList().parallelStream().collect(JoiningCollectors.joining(",", "(", ")")),
+            is("()"));
+    }
+
+    @Test
+    public void mixedCharSequences() {
+        List<CharSequence> parts = IntStream.range(0, 1000)
+            .mapToObj(i -> i % 2 == 0 ? "s" + i : new StringBuilder("b").append(i))
+            .collect(Collectors.toList());
+
+        assertThat(parts.parallelStream().collect(JoiningCollectors.joining(" ", new StringBuilder("<"), ">")),
+            is(parts.stream().collect(Collectors.joining(" ", "<", ">"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        JoiningCollectors.joining(",", "", "", 0);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,68 @@
+package common.test.tool.util;
+
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class MultimapCollectorsTest {
+
+    private static final int ROUNDS = 10;
+
+    private final List<Customer> customers = new MallGenerator(7)
+        .catalogSize(50)
+        .customers(50_000)
+        .wantedItems(1, 8)
+        .generate()
+        .getCustomerList();
+
+    @Test
+    public void invertingToSetUnderParallelStress() {
+        Map<String, Set<String>> expected = customers.stream()
+            .flatMap(customer -> customer.getWantToBuy().stream()
+                .map(item -> new String[] {item.getName(), customer.getName()}))
+            .collect(Collectors.groupingBy(pair -> pair[0], Collectors.mapping(pair -> pair[1], Collectors.toSet())));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Map<String, Set<String>> actual = customers.parallelStream()
+                .collect(MultimapCollectors.invertingToSet(MultimapCollectorsTest::wantedNames, Customer::getName));
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void invertingToListKeepsEveryValueUnderParallelStress() {
+        long wanted = customers.stream().mapToLong(customer -> customer.getWantToBuy().size()).sum();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Map<String, List<String>> actual = customers.parallelStream()
+                .collect(MultimapCollectors.invertingToList(MultimapCollectorsTest::wantedNames, Customer::getName));
+            assertThat(actual.values().stream().mapToLong(List::size).sum(), is(wanted));
+        }
+    }
+
+    @Test
+    public void groupingToSetUnderParallelStress() {
+        Map<Integer, Set<String>> expected = customers.stream()
+            .collect(Collectors.groupingBy(Customer::getAge, Collectors.mapping(Customer::getName, Collectors.toSet())));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Map<Integer, Set<String>> actual = customers.parallelStream()
+                .collect(MultimapCollectors.groupingToSet(Customer::getAge, Customer::getName));
+            assertThat(actual, is(expected));
+        }
+    }
+
+    private static List<String> wantedNames(Customer customer) {
+        return customer.getWantToBuy().stream().map(Item::getName).collect(Collectors.toList());
+    }
+}
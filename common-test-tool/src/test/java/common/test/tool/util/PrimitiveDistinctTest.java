@@ -0,0 +1,107 @@
+package common.test.tool.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class PrimitiveDistinctTest {
+
+    private static final int ROUNDS = 5;
+
+    private final int[] ints = new SplittableRandom(13).ints(300_000, -5_000, 5_000).toArray();
+    private final long[] longs = new SplittableRandom(17).longs(300_000, 0, 50_000)
+        .map(value -> value * 1_000_000_007L).toArray();
+
+    private final List<Integer> expectedInts = Arrays.stream(ints).boxed().distinct().collect(Collectors.toList());
+    private final List<Long> expectedLongs = Arrays.stream(longs).boxed().distinct().collect(Collectors.toList());
+
+    @Test
+    public void encounterOrderInEveryMode() {
+        for (int round = 0; round < ROUNDS; round++) {
+            assertThat(boxed(PrimitiveDistinct.distinct(IntStream.of(ints))), is(expectedInts));
+            assertThat(boxed(PrimitiveDistinct.distinct(IntStream.of(ints).parallel())), is(expectedInts));
+            assertThat(boxed(PrimitiveDistinct.distinct(IntStream.of(ints).parallel(), -5_000, 4_999)),
+                is(expectedInts));
+            assertThat(boxed(PrimitiveDistinct.distinct(LongStream.of(longs).parallel())), is(expectedLongs));
+            assertThat(boxed(PrimitiveDistinct.distinct(LongStream.of(longs), 0, Long.MAX_VALUE)), is(expectedLongs));
+            assertThat(Arrays.stream(PrimitiveDistinct.toDistinctArray(IntStream.of(ints).parallel())).boxed()
+                .collect(Collectors.toList()), is(expectedInts));
+            assertThat(Arrays.stream(PrimitiveDistinct.toDistinctArray(LongStream.of(longs).parallel())).boxed()
+                .collect(Collectors.toList()), is(expectedLongs));
+        }
+    }
+
+    @Test
+    public void sequentialResultMayBeTurnedParallel() {
+        for (int round = 0; round < ROUNDS; round++) {
+            assertThat(boxed(PrimitiveDistinct.distinct(IntStream.of(ints), -5_000, 4_999).parallel()),
+                is(expectedInts));
+            assertThat(PrimitiveDistinct.distinct(LongStream.of(longs)).parallel().count(),
+                is((long) expectedLongs.size()));
+        }
+    }
+
+    @Test
+    public void resultKeepsTheSourceParallelism() {
+        assertTrue(PrimitiveDistinct.distinct(IntStream.of(ints).parallel()).isParallel());
+        assertFalse(PrimitiveDistinct.distinct(IntStream.of(ints)).isParallel());
+    }
+
+    @Test
+    public void sequentialSourceStaysLazy() {
+        assertThat(boxed(PrimitiveDistinct.distinct(IntStream.iterate(0, i -> (i + 1) % 10)).limit(10)),
+            is(IntStream.range(0, 10).boxed().collect(Collectors.toList())));
+        assertThat(PrimitiveDistinct.distinct(LongStream.iterate(7, i -> i * 3 % 11), 0, 10).limit(5).sum(),
+            is(7L + 10 + 8 + 2 + 6));
+    }
+
+    @Test
+    public void extremeRangesDoNotWrapIntoASmallBitmap() {
+        long[] extremes = {Long.MIN_VALUE, Long.MAX_VALUE, 0, Long.MIN_VALUE, -1, Long.MAX_VALUE, 1L << 40};
+        List<Long> expected = Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1L << 40);
+
+        assertThat(boxed(PrimitiveDistinct.distinct(LongStream.of(extremes), Long.MIN_VALUE, Long.MAX_VALUE)),
+            is(expected));
+        assertThat(boxed(PrimitiveDistinct.distinct(LongStream.of(extremes).parallel(), Long.MIN_VALUE,
+            Long.MAX_VALUE)), is(expected));
+        assertThat(boxed(PrimitiveDistinct.distinct(IntStream.of(Integer.MIN_VALUE, Integer.MAX_VALUE,
+            Integer.MIN_VALUE), Integer.MIN_VALUE, Integer.MAX_VALUE)), contains(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        try {
+            PrimitiveDistinct.distinctUnordered(LongStream.of(extremes), Long.MIN_VALUE, Long.MAX_VALUE);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expectedException) {
+            assertThat(expectedException.getMessage(), containsString("unsuitable for a bitmap"));
+        }
+    }
+
+    @Test
+    public void unorderedYieldsEachValueOnce() {
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Integer> actual =
+                boxed(PrimitiveDistinct.distinctUnordered(IntStream.of(ints).parallel(), -5_000, 4_999));
+            assertThat(actual.size(), is(expectedInts.size()));
+            assertThat(actual, containsInAnyOrder(expectedInts.toArray()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsValuesOutsideTheRange() {
+        PrimitiveDistinct.distinct(IntStream.of(1, 2, 3).parallel(), 1, 2).count();
+    }
+
+    private static List<Integer> boxed(IntStream stream) {
+        return stream.boxed().collect(Collectors.toList());
+    }
+
+    private static List<Long> boxed(LongStream stream) {
+        return stream.boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package common.test.tool.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class TopKCollectorsTest {
+
+    private static final int ROUNDS = 5;
+    private static final int[] KS = {0, 1, 7, 100, 5_000, 200_000};
+
+    /** Few distinct scores among many elements, so almost every comparison is a tie. */
+    private final List<Scored> elements = scored(100_000, new SplittableRandom(9));
+
+    @Test
+    public void parallelMatchesSequentialAndStableSortWithTies() {
+        Comparator<Scored> byScore = Comparator.comparingInt(scored -> scored.score);
+        for (int k : KS) {
+            check(TopKCollectors.topK(k, byScore), sortedLimit(byScore.reversed(), k));
+            check(TopKCollectors.bottomK(k, byScore), sortedLimit(byScore, k));
+            check(TopKCollectors.topKByInt(k, scored -> scored.score), sortedLimit(byScore.reversed(), k));
+            check(TopKCollectors.bottomKByInt(k, scored -> scored.score), sortedLimit(byScore, k));
+        }
+    }
+
+    @Test
+    public void extremeKeysAreOrderedWithoutOverflow() {
+        List<Integer> keys = IntStream.of(0, Integer.MIN_VALUE, -1, Integer.MAX_VALUE, 1, Integer.MIN_VALUE)
+            .boxed().collect(Collectors.toList());
+
+        assertThat(keys.parallelStream().collect(TopKCollectors.topKByInt(3, Integer::intValue)),
+            is(Arrays.asList(Integer.MAX_VALUE, 1, 0)));
+        assertThat(keys.parallelStream().collect(TopKCollectors.bottomKByInt(2, Integer::intValue)),
+            is(Arrays.asList(Integer.MIN_VALUE, Integer.MIN_VALUE)));
+    }
+
+    @Test
+    public void hugeKOnSmallParallelInputAllocatesOnlyWhatItKeeps() {
+        List<Integer> input = IntStream.range(0, 1_000).boxed().collect(Collectors.toList());
+        List<Integer> descending = IntStream.range(0, 1_000).map(i -> 999 - i).boxed().collect(Collectors.toList());
+
+        List<Integer> byComparator = input.parallelStream()
+            .collect(TopKCollectors.topK(Integer.MAX_VALUE, Comparator.naturalOrder()));
+        List<Integer> byInt = input.parallelStream().collect(TopKCollectors.topKByInt(Integer.MAX_VALUE, i -> i));
+
+        assertThat(byComparator, is(descending));
+        assertThat(byInt, is(descending));
+        // both return a modifiable ArrayList
+        assertThat(byComparator.getClass(), is((Object) ArrayList.class));
+        assertThat(byInt.getClass(), is((Object) ArrayList.class));
+        byInt.add(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeK() {
+        TopKCollectors.topK(-1, Comparator.naturalOrder());
+    }
+
+    private void check(Collector<Scored, ?, List<Scored>> collector, List<Integer> expected) {
+        assertThat(ids(elements.stream().collect(collector)), is(expected));
+        for (int round = 0; round < ROUNDS; round++) {
+            assertThat(ids(elements.parallelStream().collect(collector)), is(expected));
+        }
+    }
+
+    private List<Integer> sortedLimit(Comparator<Scored> order, int k) {
+        return ids(elements.stream().sorted(order).limit(k).collect(Collectors.toList()));
+    }
+
+    private static List<Scored> scored(int count, SplittableRandom random) {
+        return IntStream.range(0, count)
+            .mapToObj(id -> new Scored(id, random.nextInt(20)))
+            .collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<Scored> scored) {
+        return scored.stream().map(element -> element.id).collect(Collectors.toList());
+    }
+
+    private static final class Scored {
+
+        private final int id;
+        private final int score;
+
+        private Scored(int id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
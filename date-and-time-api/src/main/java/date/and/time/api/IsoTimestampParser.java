@@ -0,0 +1,463 @@
+package date.and.time.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser for the fixed ISO-8601 layouts, decoding text or ASCII bytes straight into primitive values.
+ * <p>
+ * Accepted layouts, with a four-digit year:
+ * <ul>
+ * <li>date, as {@link LocalDate#parse}: {@code 2015-06-18}</li>
+ * <li>time, as {@link LocalTime#parse}: {@code 23:07}, {@code 23:07:03}, {@code 23:07:03.100}</li>
+ * <li>local date-time, as {@link LocalDateTime#parse}: {@code 2015-06-20T23:07:30}</li>
+ * <li>instant with offset and optional region, as {@link OffsetDateTime#parse} and {@link ZonedDateTime#parse}:
+ * {@code 2015-06-18T23:07:25Z}, {@code 2015-06-18T23:07:25+09:00[Asia/Tokyo]}</li>
+ * </ul>
+ * As in the JDK parsers, the {@code T} separator and the {@code Z} offset may be lowercase, and an offset is
+ * {@code +HH}, {@code +HH:MM} or {@code +HH:MM:SS}; Java 8's parsers reject the hour-only form, later ones accept
+ * it.
+ * The {@code java.time} parsers go through {@code DateTimeFormatter}, which allocates a field map and several
+ * intermediate objects per call. This parser allocates nothing on success: each {@code parse} method returns the
+ * main value as a {@code long} and keeps the rest (nanos, offset, region) in fields, and {@code java.time} objects
+ * are built only when asked for with the {@code to...} methods. Region ids are resolved once and cached.
+ * <p>
+ * An instance is reusable and not thread-safe; use one per thread. Malformed input throws
+ * {@link DateTimeParseException}, as the JDK parsers do.
+ */
+public final class IsoTimestampParser {
+
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int[] FRACTION_SCALE = {
+        1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+
+    private enum Kind {
+        NONE, DATE, TIME, LOCAL_DATE_TIME, INSTANT
+    }
+
+    // input of the current call: either chars, or bytes from base
+    private CharSequence chars;
+    private byte[] bytes;
+    private int base;
+    private int length;
+
+    // result of the last successful parse
+    private Kind kind = Kind.NONE;
+    private long epochDay;
+    private long secondOfDay;
+    private int nano;
+    private int offsetSeconds;
+    private String region;
+    // region of an earlier parse, kept across offset-only parses for the repeat check in region(int, int)
+    private String lastRegion;
+
+    private final Map<String, ZoneId> zones = new HashMap<>();
+
+    /** Days since 1970-01-01 of {@code yyyy-MM-dd}. */
+    public long parseEpochDay(CharSequence text) {
+        input(text);
+        return epochDay();
+    }
+
+    public long parseEpochDay(byte[] ascii, int offset, int length) {
+        input(ascii, offset, length);
+        return epochDay();
+    }
+
+    /** Nanoseconds since midnight of {@code HH:mm[:ss[.fffffffff]]}. */
+    public long parseNanoOfDay(CharSequence text) {
+        input(text);
+        return nanoOfDay();
+    }
+
+    public long parseNanoOfDay(byte[] ascii, int offset, int length) {
+        input(ascii, offset, length);
+        return nanoOfDay();
+    }
+
+    /**
+     * Seconds since 1970-01-01T00:00 of a local date-time, counted as if it were UTC; the fraction is available
+     * from {@link #getNano()}.
+     */
+    public long parseLocalEpochSecond(CharSequence text) {
+        input(text);
+        return localEpochSecond();
+    }
+
+    public long parseLocalEpochSecond(byte[] ascii, int offset, int length) {
+        input(ascii, offset, length);
+        return localEpochSecond();
+    }
+
+    /**
+     * Epoch second of a date-time with offset and optional {@code [region]}. The offset fixes the instant, as it
+     * does for {@link ZonedDateTime#parse} from Java 9 on (Java 8 lets the region override the offset inside a
+     * daylight saving overlap); the region only matters for {@link #toZonedDateTime()}.
+     */
+    public long parseEpochSecond(CharSequence text) {
+        input(text);
+        return epochSecond();
+    }
+
+    public long parseEpochSecond(byte[] ascii, int offset, int length) {
+        input(ascii, offset, length);
+        return epochSecond();
+    }
+
+    /**
+     * Like {@link #parseEpochSecond(CharSequence)}, packed into nanoseconds since the epoch. The packed form covers
+     * the years 1677 to 2262; instants outside throw {@link DateTimeException}.
+     */
+    public long parseEpochNanos(CharSequence text) {
+        input(text);
+        return packNanos(epochSecond(), nano);
+    }
+
+    public long parseEpochNanos(byte[] ascii, int offset, int length) {
+        input(ascii, offset, length);
+        return packNanos(epochSecond(), nano);
+    }
+
+    /** Nano-of-second of the last time or date-time parsed. */
+    public int getNano() {
+        return nano;
+    }
+
+    /** Offset of the last instant parsed, in seconds. */
+    public int getOffsetSeconds() {
+        return offsetSeconds;
+    }
+
+    /** Region id of the last instant parsed, or {@code null} if it had an offset only. */
+    public String getRegion() {
+        return region;
+    }
+
+    public LocalDate toLocalDate() {
+        require(Kind.DATE, Kind.LOCAL_DATE_TIME, Kind.INSTANT);
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    public LocalTime toLocalTime() {
+        require(Kind.TIME, Kind.LOCAL_DATE_TIME, Kind.INSTANT);
+        return LocalTime.ofNanoOfDay(secondOfDay * NANOS_PER_SECOND + nano);
+    }
+
+    /** The last local date-time parsed, or the local date-time of the last instant at its offset. */
+    public LocalDateTime toLocalDateTime() {
+        require(Kind.LOCAL_DATE_TIME, Kind.INSTANT);
+        return LocalDateTime.of(toLocalDate(), toLocalTime());
+    }
+
+    public Instant toInstant() {
+        require(Kind.INSTANT);
+        return Instant.ofEpochSecond(instantSecond(), nano);
+    }
+
+    public OffsetDateTime toOffsetDateTime() {
+        require(Kind.INSTANT);
+        return OffsetDateTime.of(toLocalDateTime(), ZoneOffset.ofTotalSeconds(offsetSeconds));
+    }
+
+    /** The instant in the parsed region, or at the parsed offset if there was none. */
+    public ZonedDateTime toZonedDateTime() {
+        require(Kind.INSTANT);
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(offsetSeconds);
+        if (region == null) {
+            return ZonedDateTime.of(toLocalDateTime(), offset);
+        }
+        return ZonedDateTime.ofInstant(toInstant(), zones.computeIfAbsent(region, ZoneId::of));
+    }
+
+    /** Packs an epoch second and nanosecond into nanoseconds since the epoch. */
+    public static long packNanos(long epochSecond, int nano) {
+        try {
+            return Math.addExact(Math.multiplyExact(epochSecond, NANOS_PER_SECOND), nano);
+        } catch (ArithmeticException e) {
+            throw new DateTimeException("Instant exceeds the packed nanosecond range: " + epochSecond + "s");
+        }
+    }
+
+    private void input(CharSequence text) {
+        chars = text;
+        bytes = null;
+        base = 0;
+        length = text.length();
+    }
+
+    private void input(byte[] ascii, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > ascii.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array " + ascii.length);
+        }
+        chars = null;
+        bytes = ascii;
+        base = offset;
+        this.length = length;
+    }
+
+    private long epochDay() {
+        int end = date(0);
+        expectEnd(end);
+        kind = Kind.DATE;
+        return epochDay;
+    }
+
+    private long nanoOfDay() {
+        int end = time(0);
+        expectEnd(end);
+        kind = Kind.TIME;
+        return secondOfDay * NANOS_PER_SECOND + nano;
+    }
+
+    private long localEpochSecond() {
+        int end = dateTime();
+        expectEnd(end);
+        kind = Kind.LOCAL_DATE_TIME;
+        return epochDay * SECONDS_PER_DAY + secondOfDay;
+    }
+
+    private long epochSecond() {
+        int i = dateTime();
+        i = offset(i);
+        region = null;
+        if (i < length && at(i) == '[') {
+            int close = i + 1;
+            while (close < length && at(close) != ']') {
+                close++;
+            }
+            if (close == i + 1 || close == length) {
+                throw error("Unterminated or empty region", i);
+            }
+            region = region(i + 1, close);
+            i = close + 1;
+        }
+        expectEnd(i);
+        kind = Kind.INSTANT;
+        return instantSecond();
+    }
+
+    private long instantSecond() {
+        return epochDay * SECONDS_PER_DAY + secondOfDay - offsetSeconds;
+    }
+
+    private int dateTime() {
+        int i = date(0);
+        if (i >= length || (at(i) != 'T' && at(i) != 't')) {
+            throw error("Expected 'T'", i);
+        }
+        return time(i + 1);
+    }
+
+    /** {@code yyyy-MM-dd} at {@code i}; sets {@link #epochDay} and returns the index after it. */
+    private int date(int i) {
+        int year = digits(i, 4);
+        expect(i + 4, '-');
+        int month = digits(i + 5, 2);
+        expect(i + 7, '-');
+        int day = digits(i + 8, 2);
+        if (month < 1 || month > 12) {
+            throw error("Invalid month " + month, i + 5);
+        }
+        if (day < 1 || day > lengthOfMonth(year, month)) {
+            throw error("Invalid day " + day + " for " + year + "-" + month, i + 8);
+        }
+        epochDay = toEpochDay(year, month, day);
+        return i + 10;
+    }
+
+    /** {@code HH:mm[:ss[.f...]]} at {@code i}; sets {@link #secondOfDay} and {@link #nano}. */
+    private int time(int i) {
+        int hour = digits(i, 2);
+        expect(i + 2, ':');
+        int minute = digits(i + 3, 2);
+        int second = 0;
+        int fraction = 0;
+        int end = i + 5;
+        if (end < length && at(end) == ':') {
+            second = digits(end + 1, 2);
+            end += 3;
+            if (end < length && at(end) == '.') {
+                int start = end + 1;
+                end = start;
+                while (end < length && end - start < 9 && isDigit(at(end))) {
+                    fraction = fraction * 10 + (at(end) - '0');
+                    end++;
+                }
+                fraction *= FRACTION_SCALE[end - start];
+            }
+        }
+        if (hour > 23 || minute > 59 || second > 59) {
+            throw error("Invalid time " + hour + ":" + minute + ":" + second, i);
+        }
+        secondOfDay = hour * 3600 + minute * 60 + second;
+        nano = fraction;
+        return end;
+    }
+
+    /** {@code Z} or {@code +HH[:MM[:SS]]} at {@code i}; sets {@link #offsetSeconds}. */
+    private int offset(int i) {
+        if (i >= length) {
+            throw error("Missing offset", i);
+        }
+        char sign = at(i);
+        if (sign == 'Z' || sign == 'z') {
+            offsetSeconds = 0;
+            return i + 1;
+        }
+        if (sign != '+' && sign != '-') {
+            throw error("Expected offset", i);
+        }
+        int hours = digits(i + 1, 2);
+        int minutes = 0;
+        int seconds = 0;
+        int end = i + 3;
+        if (end < length && at(end) == ':') {
+            minutes = digits(end + 1, 2);
+            end += 3;
+            if (end < length && at(end) == ':') {
+                seconds = digits(end + 1, 2);
+                end += 3;
+            }
+        }
+        if (hours > 18 || minutes > 59 || seconds > 59 || (hours == 18 && (minutes | seconds) != 0)) {
+            throw error("Invalid offset", i);
+        }
+        int total = hours * 3600 + minutes * 60 + seconds;
+        offsetSeconds = sign == '-' ? -total : total;
+        return end;
+    }
+
+    /** The region id text, reusing the previous String when the same region repeats. */
+    private String region(int start, int end) {
+        if (lastRegion != null && regionEquals(lastRegion, start, end)) {
+            return lastRegion;
+        }
+        for (String known : zones.keySet()) {
+            if (regionEquals(known, start, end)) {
+                lastRegion = known;
+                return known;
+            }
+        }
+        String id = bytes != null
+            ? new String(bytes, base + start, end - start, StandardCharsets.ISO_8859_1)
+            : chars.subSequence(start, end).toString();
+        try {
+            zones.put(id, ZoneId.of(id));
+        } catch (DateTimeException e) {
+            throw error("Unknown region " + id, start);
+        }
+        lastRegion = id;
+        return id;
+    }
+
+    private boolean regionEquals(String id, int start, int end) {
+        if (id.length() != end - start) {
+            return false;
+        }
+        for (int j = 0; j < id.length(); j++) {
+            if (id.charAt(j) != at(start + j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char at(int i) {
+        return bytes != null ? (char) (bytes[base + i] & 0xff) : chars.charAt(i);
+    }
+
+    private int digits(int i, int count) {
+        if (i + count > length) {
+            throw error("Text too short", length);
+        }
+        int value = 0;
+        for (int j = i; j < i + count; j++) {
+            char c = at(j);
+            if (!isDigit(c)) {
+                throw error("Expected digit", j);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void expect(int i, char c) {
+        if (i >= length || at(i) != c) {
+            throw error("Expected '" + c + "'", i);
+        }
+    }
+
+    private void expectEnd(int i) {
+        if (i != length) {
+            throw error("Unparsed text found", i);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void require(Kind... kinds) {
+        for (Kind k : kinds) {
+            if (kind == k) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Last parse produced " + kind + ", not " + kinds[0]);
+    }
+
+    private DateTimeParseException error(String message, int index) {
+        kind = Kind.NONE;
+        String text = bytes != null
+            ? new String(bytes, base, length, StandardCharsets.ISO_8859_1)
+            : chars.toString();
+        return new DateTimeParseException(message + " at index " + index + ": " + text, text, index);
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /** Same arithmetic as {@link LocalDate#toEpochDay()}, for non-negative years. */
+    private static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,260 @@
+package date.and.time.api;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts columns of epoch values to and from the local date-times of one zone, in bulk.
+ * <p>
+ * The zone's transitions between {@code fromYear} and {@code toYear} are read from {@link ZoneRules} once, into a
+ * sorted {@code long[]} of transition seconds and an {@code int[]} of the offsets between them. Looking up an offset
+ * is then a binary search, skipped when a value falls in the same period as the one before it, so sorted or
+ * clustered columns cost a comparison per value. Values outside the years fall back to {@code ZoneRules}.
+ * <p>
+ * Local date-times are written as {@code long}s counted from 1970-01-01T00:00 in the zone's local time, in the
+ * unit of the input, the same convention as {@link IsoTimestampParser#parseLocalEpochSecond(CharSequence)}. A
+ * Tokyo column becomes a Los Angeles one with {@code tokyo.toEpoch} followed by {@code losAngeles.toLocal}, which
+ * agrees with {@link ZonedDateTime#withZoneSameInstant} value for value.
+ * <p>
+ * Scaling: columns longer than the threshold ({@link #DEFAULT_THRESHOLD} by default) are split into ranges of at
+ * most that size and converted on a {@link ForkJoinPool}. Instances are immutable and thread-safe.
+ */
+public final class ZoneConverter {
+
+    public static final int DEFAULT_THRESHOLD = 32_768;
+    public static final int DEFAULT_FROM_YEAR = 1900;
+    public static final int DEFAULT_TO_YEAR = 2100;
+
+    private static final int OFFSETS = 0;
+    private static final int TO_LOCAL = 1;
+    private static final int TO_EPOCH = 2;
+
+    private final ZoneId zone;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    // covered epoch seconds and local seconds, from inclusive to exclusive
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final long localStart;
+    private final long localEnd;
+    // transition i switches from offsets[i] to offsets[i + 1] at transitions[i]
+    private final long[] transitions;
+    private final int[] offsets;
+    // first local second after transition i that maps to offsets[i + 1], as ZonedDateTime.ofLocal resolves gaps
+    // and overlaps
+    private final long[] localTransitions;
+
+    public ZoneConverter(ZoneId zone) {
+        this(zone, DEFAULT_FROM_YEAR, DEFAULT_TO_YEAR);
+    }
+
+    public ZoneConverter(ZoneId zone, int fromYear, int toYear) {
+        this(zone, fromYear, toYear, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ZoneConverter(ZoneId zone, int fromYear, int toYear, ForkJoinPool pool, int threshold) {
+        if (fromYear > toYear || fromYear < Year.MIN_VALUE || toYear >= Year.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid year range " + fromYear + " to " + toYear);
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.zone = zone;
+        this.pool = pool;
+        this.threshold = threshold;
+
+        ZoneRules rules = zone.getRules();
+        List<ZoneOffsetTransition> found = new ArrayList<>();
+        if (rules.isFixedOffset()) {
+            rangeStart = Long.MIN_VALUE;
+            rangeEnd = Long.MAX_VALUE;
+        } else {
+            rangeStart = LocalDateTime.of(fromYear, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+            rangeEnd = LocalDateTime.of(toYear + 1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+            ZoneOffsetTransition next = rules.nextTransition(Instant.ofEpochSecond(rangeStart - 1));
+            while (next != null && next.toEpochSecond() < rangeEnd) {
+                found.add(next);
+                next = rules.nextTransition(next.getInstant());
+            }
+        }
+        transitions = new long[found.size()];
+        localTransitions = new long[found.size()];
+        offsets = new int[found.size() + 1];
+        offsets[0] = rules.isFixedOffset()
+            ? rules.getOffset(Instant.EPOCH).getTotalSeconds()
+            : rules.getOffset(Instant.ofEpochSecond(rangeStart)).getTotalSeconds();
+        for (int i = 0; i < found.size(); i++) {
+            ZoneOffsetTransition transition = found.get(i);
+            transitions[i] = transition.toEpochSecond();
+            offsets[i + 1] = transition.getOffsetAfter().getTotalSeconds();
+            localTransitions[i] = transitions[i] + Math.max(offsets[i], offsets[i + 1]);
+        }
+        localStart = rules.isFixedOffset() ? Long.MIN_VALUE : rangeStart + offsets[0];
+        localEnd = rules.isFixedOffset() ? Long.MAX_VALUE : rangeEnd + offsets[found.size()];
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /** Number of transitions in the precomputed years. */
+    public int getTransitionCount() {
+        return transitions.length;
+    }
+
+    /** Offset of the zone at the instant, in seconds. */
+    public int offsetAt(long epochSecond) {
+        if (epochSecond < rangeStart || epochSecond >= rangeEnd) {
+            return zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        return offsets[upperBound(transitions, epochSecond)];
+    }
+
+    /**
+     * Offset to subtract from the local date-time, given in seconds as described above, to get the instant that
+     * {@link ZonedDateTime#ofLocal} without a preference resolves it to. In an overlap that is the earlier offset.
+     * In a gap it is the offset before the gap: {@code ofLocal} moves the local date-time forward by the length of
+     * the gap and uses the offset after it, which is the same instant.
+     */
+    public int offsetAtLocal(long localSecond) {
+        if (localSecond < localStart || localSecond >= localEnd) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+            return (int) (localSecond - ZonedDateTime.ofLocal(local, zone, null).toEpochSecond());
+        }
+        return offsets[upperBound(localTransitions, localSecond)];
+    }
+
+    /** Writes the offset at each epoch value, in seconds, to {@code offsetSeconds}. */
+    public void offsets(long[] epochs, TimeUnit unit, int[] offsetSeconds) {
+        run(OFFSETS, epochs, unit, offsetSeconds, null);
+    }
+
+    /** Writes the local date-time of each epoch value to {@code locals}, in the same unit; may be {@code epochs}. */
+    public void toLocal(long[] epochs, TimeUnit unit, long[] locals) {
+        run(TO_LOCAL, epochs, unit, null, locals);
+    }
+
+    /** Writes the epoch value of each local date-time to {@code epochs}, in the same unit; may be {@code locals}. */
+    public void toEpoch(long[] locals, TimeUnit unit, long[] epochs) {
+        run(TO_EPOCH, locals, unit, null, epochs);
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneConverter{" + zone + ", " + transitions.length + " transitions}";
+    }
+
+    private void run(int operation, long[] in, TimeUnit unit, int[] intOut, long[] longOut) {
+        int length = intOut != null ? intOut.length : longOut.length;
+        if (length < in.length) {
+            throw new IllegalArgumentException("Output holds " + length + " values, input has " + in.length);
+        }
+        long perSecond = unit.convert(1, TimeUnit.SECONDS);
+        if (perSecond < 1) {
+            throw new IllegalArgumentException("Unit must be seconds or finer: " + unit);
+        }
+        if (in.length <= threshold) {
+            convert(operation, in, perSecond, intOut, longOut, 0, in.length);
+        } else {
+            pool.invoke(new ConvertTask(operation, in, perSecond, intOut, longOut, 0, in.length));
+        }
+    }
+
+    private void convert(int operation, long[] in, long perSecond, int[] intOut, long[] longOut, int from, int to) {
+        boolean local = operation == TO_EPOCH;
+        long[] bounds = local ? localTransitions : transitions;
+        long low = local ? localStart : rangeStart;
+        long high = local ? localEnd : rangeEnd;
+        // the period of the previous value: [periodStart, periodEnd) has offsets[period]
+        int period = -1;
+        long periodStart = 0;
+        long periodEnd = 0;
+        for (int i = from; i < to; i++) {
+            long value = in[i];
+            long second = perSecond == 1 ? value : Math.floorDiv(value, perSecond);
+            int offset;
+            if (second >= periodStart && second < periodEnd) {
+                offset = offsets[period];
+            } else if (second < low || second >= high) {
+                offset = local ? offsetAtLocal(second) : offsetAt(second);
+            } else {
+                period = upperBound(bounds, second);
+                periodStart = period == 0 ? low : bounds[period - 1];
+                periodEnd = period == bounds.length ? high : bounds[period];
+                offset = offsets[period];
+            }
+            switch (operation) {
+                case OFFSETS:
+                    intOut[i] = offset;
+                    break;
+                case TO_LOCAL:
+                    longOut[i] = value + offset * perSecond;
+                    break;
+                default:
+                    longOut[i] = value - offset * perSecond;
+                    break;
+            }
+        }
+    }
+
+    /** Number of elements of the sorted {@code array} which are at most {@code key}. */
+    private static int upperBound(long[] array, long key) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (array[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private final class ConvertTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int operation;
+        private final long[] in;
+        private final long perSecond;
+        private final int[] intOut;
+        private final long[] longOut;
+        private final int from;
+        private final int to;
+
+        private ConvertTask(int operation, long[] in, long perSecond, int[] intOut, long[] longOut, int from, int to) {
+            this.operation = operation;
+            this.in = in;
+            this.perSecond = perSecond;
+            this.intOut = intOut;
+            this.longOut = longOut;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                convert(operation, in, perSecond, intOut, longOut, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConvertTask(operation, in, perSecond, intOut, longOut, from, middle),
+                new ConvertTask(operation, in, perSecond, intOut, longOut, middle, to));
+        }
+    }
+}
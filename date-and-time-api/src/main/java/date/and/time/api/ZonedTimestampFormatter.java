@@ -0,0 +1,506 @@
+package date.and.time.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Formatter for a fixed timestamp pattern, writing straight into a {@link StringBuilder}, an {@link Appendable} or
+ * a {@link ByteBuffer}.
+ * <p>
+ * The pattern is compiled once, and month, weekday and AM/PM texts are looked up once for the locale. Zone names
+ * ({@code zzz}, {@code zzzz}) are resolved through {@code TimeZoneNames} the first time a zone is formatted, as
+ * standard or daylight time, and cached per formatter. Formatting into a {@code StringBuilder} or a
+ * {@code ByteBuffer} therefore allocates nothing once the zones seen are cached, where
+ * {@code DateTimeFormatter.format} allocates the result and a display-name lookup every call.
+ * <p>
+ * Supported pattern letters, with the meaning they have in {@link DateTimeFormatter#ofPattern}:
+ * <ul>
+ * <li>{@code y}, {@code yy}, {@code yyyy}: year, for years 1 to 9999</li>
+ * <li>{@code M}, {@code MM}, {@code MMM}, {@code MMMM}: month</li>
+ * <li>{@code d}, {@code dd}: day of month; {@code E} to {@code EEE}, {@code EEEE}: day of week</li>
+ * <li>{@code H}, {@code HH}, {@code h}, {@code hh}, {@code a}: hour of day, clock hour of AM/PM, AM/PM</li>
+ * <li>{@code m}, {@code mm}, {@code s}, {@code ss}: minute, second; {@code S} to {@code SSSSSSSSS}: fraction</li>
+ * <li>{@code z} to {@code zzz}, {@code zzzz}: short and long zone name; {@code VV}: zone id</li>
+ * <li>{@code X}, {@code XX}, {@code XXX}: offset, {@code Z} for zero</li>
+ * </ul>
+ * Text in single quotes and characters other than ASCII letters are copied as they are. Other letters are
+ * rejected with {@link IllegalArgumentException}.
+ * <p>
+ * Instances are immutable apart from the zone name cache and safe to share between threads.
+ */
+public final class ZonedTimestampFormatter {
+
+    private static final int LITERAL = 0;
+    private static final int YEAR = 1;
+    private static final int YEAR_2 = 2;
+    private static final int MONTH = 3;
+    private static final int MONTH_TEXT = 4;
+    private static final int DAY = 5;
+    private static final int DAY_OF_WEEK_TEXT = 6;
+    private static final int HOUR = 7;
+    private static final int CLOCK_HOUR = 8;
+    private static final int AM_PM = 9;
+    private static final int MINUTE = 10;
+    private static final int SECOND = 11;
+    private static final int FRACTION = 12;
+    private static final int ZONE_NAME = 13;
+    private static final int ZONE_ID = 14;
+    private static final int OFFSET = 15;
+
+    private static final int[] POWERS_OF_TEN = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+    };
+
+    private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private final String pattern;
+    private final Locale locale;
+
+    // compiled pattern: one field, width and literal per element
+    private final int[] fields;
+    private final int[] widths;
+    private final String[] literals;
+
+    private final String[] shortMonths;
+    private final String[] longMonths;
+    private final String[] shortDays;
+    private final String[] longDays;
+    private final String[] amPm;
+
+    private final boolean needsZoneNames;
+    private final DateTimeFormatter shortZoneName;
+    private final DateTimeFormatter longZoneName;
+    // per zone: short standard, short daylight, long standard, long daylight
+    private final ConcurrentMap<ZoneId, String[]> zoneNames = new ConcurrentHashMap<>();
+
+    private ZonedTimestampFormatter(String pattern, Locale locale) {
+        this.pattern = pattern;
+        this.locale = locale;
+        List<int[]> elements = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        compile(pattern, elements, texts);
+        fields = new int[elements.size()];
+        widths = new int[elements.size()];
+        literals = texts.toArray(new String[0]);
+        boolean zoneNamed = false;
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = elements.get(i)[0];
+            widths[i] = elements.get(i)[1];
+            zoneNamed |= fields[i] == ZONE_NAME;
+        }
+        needsZoneNames = zoneNamed;
+
+        shortMonths = new String[12];
+        longMonths = new String[12];
+        for (int month = 1; month <= 12; month++) {
+            LocalDate date = LocalDate.of(2000, month, 1);
+            shortMonths[month - 1] = DateTimeFormatter.ofPattern("MMM", locale).format(date);
+            longMonths[month - 1] = DateTimeFormatter.ofPattern("MMMM", locale).format(date);
+        }
+        shortDays = new String[7];
+        longDays = new String[7];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            LocalDate date = LocalDate.of(2000, 1, 3).plusDays(day.ordinal());
+            shortDays[day.ordinal()] = DateTimeFormatter.ofPattern("EEE", locale).format(date);
+            longDays[day.ordinal()] = DateTimeFormatter.ofPattern("EEEE", locale).format(date);
+        }
+        amPm = new String[] {
+            DateTimeFormatter.ofPattern("a", locale).format(LocalTime.MIDNIGHT),
+            DateTimeFormatter.ofPattern("a", locale).format(LocalTime.NOON)
+        };
+        shortZoneName = DateTimeFormatter.ofPattern("zzz", locale);
+        longZoneName = DateTimeFormatter.ofPattern("zzzz", locale);
+    }
+
+    /** A formatter for {@code pattern} in the default formatting locale, as {@link DateTimeFormatter#ofPattern}. */
+    public static ZonedTimestampFormatter ofPattern(String pattern) {
+        return ofPattern(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    public static ZonedTimestampFormatter ofPattern(String pattern, Locale locale) {
+        return new ZonedTimestampFormatter(pattern, locale);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public String format(ZonedDateTime dateTime) {
+        return formatTo(dateTime, new StringBuilder(32)).toString();
+    }
+
+    /** Appends {@code dateTime} to {@code out} and returns {@code out}. */
+    public StringBuilder formatTo(ZonedDateTime dateTime, StringBuilder out) {
+        long epochDay = dateTime.toLocalDate().toEpochDay();
+        int secondOfDay = dateTime.toLocalTime().toSecondOfDay();
+        int offset = dateTime.getOffset().getTotalSeconds();
+        long epochSecond = epochDay * 86_400L + secondOfDay - offset;
+        boolean daylight = needsZoneNames && isDaylight(dateTime.getZone(), epochSecond, offset);
+        print(out, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+            (int) Math.floorMod(epochDay + 3, 7L), secondOfDay, dateTime.getNano(), offset, dateTime.getZone(),
+            daylight, epochSecond);
+        return out;
+    }
+
+    /** Appends the instant {@code epochSecond}, {@code nano} as seen in {@code zone} to {@code out}. */
+    public StringBuilder formatTo(long epochSecond, int nano, ZoneId zone, StringBuilder out) {
+        ZoneRules rules = zone.getRules();
+        int offset;
+        boolean daylight = false;
+        if (rules.isFixedOffset()) {
+            offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+        } else {
+            Instant instant = Instant.ofEpochSecond(epochSecond);
+            offset = rules.getOffset(instant).getTotalSeconds();
+            daylight = needsZoneNames && rules.getStandardOffset(instant).getTotalSeconds() != offset;
+        }
+        long localSecond = epochSecond + offset;
+        long epochDay = Math.floorDiv(localSecond, 86_400L);
+        int secondOfDay = (int) Math.floorMod(localSecond, 86_400L);
+        printEpochDay(out, epochDay, secondOfDay, nano, offset, zone, daylight, epochSecond);
+        return out;
+    }
+
+    /** Writes to any {@code Appendable}; I/O errors are rethrown as {@link UncheckedIOException}. */
+    public void formatTo(ZonedDateTime dateTime, Appendable out) {
+        if (out instanceof StringBuilder) {
+            formatTo(dateTime, (StringBuilder) out);
+            return;
+        }
+        copy(formatTo(dateTime, scratch()), out);
+    }
+
+    public void formatTo(long epochSecond, int nano, ZoneId zone, Appendable out) {
+        if (out instanceof StringBuilder) {
+            formatTo(epochSecond, nano, zone, (StringBuilder) out);
+            return;
+        }
+        copy(formatTo(epochSecond, nano, zone, scratch()), out);
+    }
+
+    /**
+     * Writes the instant as UTF-8 at the buffer's position and advances it.
+     *
+     * @throws BufferOverflowException if the text does not fit; the position is left unchanged
+     */
+    public ByteBuffer formatTo(long epochSecond, int nano, ZoneId zone, ByteBuffer out) {
+        return encode(formatTo(epochSecond, nano, zone, scratch()), out);
+    }
+
+    public ByteBuffer formatTo(ZonedDateTime dateTime, ByteBuffer out) {
+        return encode(formatTo(dateTime, scratch()), out);
+    }
+
+    @Override
+    public String toString() {
+        return "ZonedTimestampFormatter{" + pattern + ", " + locale + "}";
+    }
+
+    private void printEpochDay(StringBuilder out, long epochDay, int secondOfDay, int nano, int offset, ZoneId zone,
+                               boolean daylight, long epochSecond) {
+        // civil date from epoch day, as LocalDate.ofEpochDay
+        long zeroDay = epochDay + 719_528L - 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long cycles = (zeroDay + 1) / 146_097 - 1;
+            adjust = cycles * 400;
+            zeroDay += -cycles * 146_097;
+        }
+        long yearEst = (400 * zeroDay + 591) / 146_097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        int dayOfWeek = (int) Math.floorMod(epochDay + 3, 7L);
+        print(out, (int) yearEst, month, day, dayOfWeek, secondOfDay, nano, offset, zone, daylight, epochSecond);
+    }
+
+    private void print(StringBuilder out, int year, int month, int day, int dayOfWeek, int secondOfDay, int nano,
+                       int offset, ZoneId zone, boolean daylight, long epochSecond) {
+        if (year < 1 || year > 9999) {
+            throw new DateTimeException("Year " + year + " is outside 1 to 9999");
+        }
+        int hour = secondOfDay / 3600;
+        for (int i = 0; i < fields.length; i++) {
+            int width = widths[i];
+            switch (fields[i]) {
+                case LITERAL:
+                    out.append(literals[i]);
+                    break;
+                case YEAR:
+                    pad(out, year, width);
+                    break;
+                case YEAR_2:
+                    pad(out, year % 100, 2);
+                    break;
+                case MONTH:
+                    pad(out, month, width);
+                    break;
+                case MONTH_TEXT:
+                    out.append(width == 3 ? shortMonths[month - 1] : longMonths[month - 1]);
+                    break;
+                case DAY:
+                    pad(out, day, width);
+                    break;
+                case DAY_OF_WEEK_TEXT:
+                    out.append(width <= 3 ? shortDays[dayOfWeek] : longDays[dayOfWeek]);
+                    break;
+                case HOUR:
+                    pad(out, hour, width);
+                    break;
+                case CLOCK_HOUR:
+                    pad(out, hour % 12 == 0 ? 12 : hour % 12, width);
+                    break;
+                case AM_PM:
+                    out.append(amPm[hour < 12 ? 0 : 1]);
+                    break;
+                case MINUTE:
+                    pad(out, secondOfDay / 60 % 60, width);
+                    break;
+                case SECOND:
+                    pad(out, secondOfDay % 60, width);
+                    break;
+                case FRACTION:
+                    pad(out, nano / POWERS_OF_TEN[9 - width], width);
+                    break;
+                case ZONE_NAME:
+                    out.append(zoneName(zone, daylight, width == 4, epochSecond));
+                    break;
+                case ZONE_ID:
+                    out.append(zone.getId());
+                    break;
+                case OFFSET:
+                    printOffset(out, offset, width);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown field " + fields[i]);
+            }
+        }
+    }
+
+    /** Appends the non-negative {@code value} zero-padded to {@code width} digits. */
+    private static void pad(StringBuilder out, int value, int width) {
+        if (value < 100 && width <= 2) {
+            // two-digit fields are most of a timestamp: skip the digit count
+            if (value >= 10 || width == 2) {
+                out.append((char) ('0' + value / 10));
+            }
+            out.append((char) ('0' + value % 10));
+            return;
+        }
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        for (; digits < width; digits++) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+
+    private static void printOffset(StringBuilder out, int offset, int width) {
+        if (offset == 0) {
+            out.append('Z');
+            return;
+        }
+        int total = Math.abs(offset);
+        int hours = total / 3600;
+        int minutes = total / 60 % 60;
+        out.append(offset < 0 ? '-' : '+');
+        pad(out, hours, 2);
+        if (width == 1 && minutes == 0) {
+            return;
+        }
+        if (width == 3) {
+            out.append(':');
+        }
+        pad(out, minutes, 2);
+    }
+
+    private String zoneName(ZoneId zone, boolean daylight, boolean full, long epochSecond) {
+        if (zone instanceof ZoneOffset) {
+            return zone.getId();
+        }
+        String[] names = zoneNames.computeIfAbsent(zone, z -> new String[4]);
+        int slot = (full ? 2 : 0) + (daylight ? 1 : 0);
+        String name = names[slot];
+        if (name == null) {
+            // the name depends only on zone, locale and daylight time; resolving it twice in a race is harmless
+            name = (full ? longZoneName : shortZoneName).format(Instant.ofEpochSecond(epochSecond).atZone(zone));
+            names[slot] = name;
+        }
+        return name;
+    }
+
+    /** As {@link ZoneRules#isDaylightSavings}, without looking the actual offset up again. */
+    private static boolean isDaylight(ZoneId zone, long epochSecond, int offset) {
+        ZoneRules rules = zone.getRules();
+        return !rules.isFixedOffset()
+            && rules.getStandardOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds() != offset;
+    }
+
+    private static StringBuilder scratch() {
+        StringBuilder scratch = SCRATCH.get();
+        scratch.setLength(0);
+        return scratch;
+    }
+
+    private static void copy(StringBuilder text, Appendable out) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer encode(StringBuilder text, ByteBuffer out) {
+        int start = out.position();
+        try {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    out.put((byte) c);
+                } else if (c < 0x800) {
+                    out.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                    int code = Character.toCodePoint(c, text.charAt(++i));
+                    out.put((byte) (0xf0 | code >> 18)).put((byte) (0x80 | code >> 12 & 0x3f))
+                        .put((byte) (0x80 | code >> 6 & 0x3f)).put((byte) (0x80 | code & 0x3f));
+                } else {
+                    out.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+                }
+            }
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            throw e;
+        }
+        return out;
+    }
+
+    private static void compile(String pattern, List<int[]> elements, List<String> texts) {
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                i = quoted(pattern, i + 1, elements, texts);
+                continue;
+            }
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                    throw new IllegalArgumentException("Reserved character '" + c + "' in pattern: " + pattern);
+                }
+                literal(elements, texts, String.valueOf(c));
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < pattern.length() && pattern.charAt(end) == c) {
+                end++;
+            }
+            int count = end - i;
+            elements.add(new int[] {field(c, count, pattern), count});
+            texts.add(null);
+            i = end;
+        }
+    }
+
+    /** Text quoted from {@code start} to the closing quote; {@code ''} stands for a quote. Returns the index after. */
+    private static int quoted(String pattern, int start, List<int[]> elements, List<String> texts) {
+        if (start < pattern.length() && pattern.charAt(start) == '\'') {
+            literal(elements, texts, "'");
+            return start + 1;
+        }
+        StringBuilder text = new StringBuilder();
+        int i = start;
+        while (true) {
+            if (i >= pattern.length()) {
+                throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+            }
+            char c = pattern.charAt(i++);
+            if (c != '\'') {
+                text.append(c);
+            } else if (i < pattern.length() && pattern.charAt(i) == '\'') {
+                text.append('\'');
+                i++;
+            } else {
+                literal(elements, texts, text.toString());
+                return i;
+            }
+        }
+    }
+
+    private static void literal(List<int[]> elements, List<String> texts, String text) {
+        int last = elements.size() - 1;
+        if (last >= 0 && elements.get(last)[0] == LITERAL) {
+            texts.set(last, texts.get(last) + text);
+            return;
+        }
+        elements.add(new int[] {LITERAL, 0});
+        texts.add(text);
+    }
+
+    private static int field(char letter, int count, String pattern) {
+        switch (letter) {
+            case 'y':
+                return count == 2 ? YEAR_2 : YEAR;
+            case 'M':
+                return count > 4 ? unsupported(letter, count, pattern) : count >= 3 ? MONTH_TEXT : MONTH;
+            case 'd':
+                return count > 2 ? unsupported(letter, count, pattern) : DAY;
+            case 'E':
+                return count > 4 ? unsupported(letter, count, pattern) : DAY_OF_WEEK_TEXT;
+            case 'H':
+                return count > 2 ? unsupported(letter, count, pattern) : HOUR;
+            case 'h':
+                return count > 2 ? unsupported(letter, count, pattern) : CLOCK_HOUR;
+            case 'a':
+                return count > 1 ? unsupported(letter, count, pattern) : AM_PM;
+            case 'm':
+                return count > 2 ? unsupported(letter, count, pattern) : MINUTE;
+            case 's':
+                return count > 2 ? unsupported(letter, count, pattern) : SECOND;
+            case 'S':
+                return count > 9 ? unsupported(letter, count, pattern) : FRACTION;
+            case 'z':
+                return count > 4 ? unsupported(letter, count, pattern) : ZONE_NAME;
+            case 'V':
+                return count != 2 ? unsupported(letter, count, pattern) : ZONE_ID;
+            case 'X':
+                return count > 3 ? unsupported(letter, count, pattern) : OFFSET;
+            default:
+                return unsupported(letter, count, pattern);
+        }
+    }
+
+    private static int unsupported(char letter, int count, String pattern) {
+        throw new IllegalArgumentException("Unsupported pattern letter " + letter + " x" + count + " in: " + pattern);
+    }
+}
@@ -0,0 +1,139 @@
+package date.and.time.api;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.SplittableRandom;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class IsoTimestampParserTest {
+
+    private static final ZoneId[] ZONES = {
+        ZoneOffset.UTC, ZoneId.of("Asia/Tokyo"), ZoneId.of("America/New_York"), ZoneId.of("Europe/London"),
+        ZoneId.of("Australia/Lord_Howe"), ZoneOffset.ofHoursMinutes(-3, -30)
+    };
+
+    private final IsoTimestampParser parser = new IsoTimestampParser();
+
+    @Test
+    public void datesMatchLocalDate() {
+        for (long day = LocalDate.of(1600, 1, 1).toEpochDay(); day < LocalDate.of(2401, 1, 1).toEpochDay(); day++) {
+            String text = LocalDate.ofEpochDay(day).toString();
+            assertThat(text, parser.parseEpochDay(text), is(day));
+            assertThat(parser.toLocalDate(), is(LocalDate.parse(text)));
+        }
+    }
+
+    @Test
+    public void timesMatchLocalTime() {
+        for (String text : new String[] {"00:00", "23:59", "23:07:03", "23:07:03.1", "23:07:03.100",
+            "23:07:03.000000001", "12:34:56.123456789"}) {
+            assertThat(text, parser.parseNanoOfDay(text), is(LocalTime.parse(text).toNanoOfDay()));
+            assertThat(parser.toLocalTime(), is(LocalTime.parse(text)));
+        }
+    }
+
+    @Test
+    public void zonedDateTimesRoundTrip() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            Instant instant = Instant.ofEpochSecond(random.nextLong(-5_000_000_000L, 8_000_000_000L),
+                random.nextInt(3) == 0 ? random.nextInt(1_000_000_000) : 0);
+            ZonedDateTime expected = instant.atZone(ZONES[i % ZONES.length]);
+            String text = expected.toString();
+
+            assertThat(text, parser.parseEpochSecond(text), is(expected.toEpochSecond()));
+            assertThat(parser.getNano(), is(expected.getNano()));
+            assertThat(parser.toZonedDateTime(), is(expected));
+
+            byte[] bytes = ("<" + text + ">").getBytes(StandardCharsets.US_ASCII);
+            assertThat(parser.parseEpochSecond(bytes, 1, bytes.length - 2), is(expected.toEpochSecond()));
+            assertThat(parser.toInstant(), is(instant));
+        }
+    }
+
+    @Test
+    public void offsetsAndLocalDateTimes() {
+        String text = "2015-06-18T23:07:25.5-03:30:15";
+        assertThat(parser.parseEpochNanos(text), is(toNanos(OffsetDateTime.parse(text).toInstant())));
+        assertThat(parser.getOffsetSeconds(), is(-(3 * 3600 + 30 * 60 + 15)));
+        assertThat(parser.getRegion(), is(nullValue()));
+        assertThat(parser.toOffsetDateTime(), is(OffsetDateTime.parse(text)));
+
+        String local = "2015-06-20T23:07:30";
+        assertThat(parser.parseLocalEpochSecond(local), is(LocalDateTime.parse(local).toEpochSecond(ZoneOffset.UTC)));
+        assertThat(parser.toLocalDateTime(), is(LocalDateTime.parse(local)));
+    }
+
+    @Test
+    public void caseInsensitiveLettersAndHourOffsets() {
+        assertThat(parser.parseEpochSecond("2015-06-18t23:07:25z"),
+            is(OffsetDateTime.parse("2015-06-18T23:07:25Z").toEpochSecond()));
+        assertThat(parser.parseLocalEpochSecond("2015-06-20t23:07:30"),
+            is(LocalDateTime.parse("2015-06-20t23:07:30").toEpochSecond(ZoneOffset.UTC)));
+
+        // accepted by ZonedDateTime.parse from Java 9 on
+        ZonedDateTime tokyo = ZonedDateTime.of(2015, 6, 18, 23, 7, 25, 0, ZoneId.of("Asia/Tokyo"));
+        assertThat(parser.parseEpochSecond("2015-06-18T23:07:25+09[Asia/Tokyo]"), is(tokyo.toEpochSecond()));
+        assertThat(parser.getOffsetSeconds(), is(9 * 3600));
+        assertThat(parser.toZonedDateTime(), is(tokyo));
+        assertThat(parser.parseEpochSecond("2015-06-18T23:07-03"),
+            is(OffsetDateTime.parse("2015-06-18T23:07-03:00").toEpochSecond()));
+    }
+
+    @Test
+    public void regionIsOnlyReportedForTheParseThatHadOne() {
+        parser.parseEpochSecond("2015-06-18T23:07:25+09:00[Asia/Tokyo]");
+        String tokyo = parser.getRegion();
+        parser.parseEpochSecond("2015-06-18T23:07:25+09:00");
+        assertThat(parser.getRegion(), is(nullValue()));
+
+        parser.parseEpochSecond("2015-06-18T23:07:25+09:00[Asia/Tokyo]");
+        assertThat(parser.getRegion(), is(sameInstance(tokyo)));
+        parser.parseEpochSecond("2015-06-18T10:07:25-04:00[America/New_York]");
+        assertThat(parser.getRegion(), is("America/New_York"));
+        assertThat(parser.toZonedDateTime().getZone(), is(ZoneId.of("America/New_York")));
+    }
+
+    @Test
+    public void rejectsWhatJdkRejects() {
+        for (String text : new String[] {"2015-02-29T00:00Z", "2015-13-01T00:00Z", "2015-06-18T24:00Z",
+            "2015-06-18T23:07+19:00", "2015-06-18T23:07", "2015-06-18 23:07Z",
+            "2015-06-18T23:07:03.1234567890Z", "2015-06-18T23:07Z[Mars/Olympus]", "2015-06-18T23:07Z[UTC",
+            "2015-6-18T23:07Z", "2015-06-18T23:07+0900", "2015-06-18T23:07+9", "2015-06-18T23:07:25+09:"}) {
+            try {
+                ZonedDateTime.parse(text);
+                fail("JDK accepts " + text);
+            } catch (DateTimeParseException expected) {
+                // both must reject it
+            }
+            try {
+                parser.parseEpochSecond(text);
+                fail("Accepted " + text);
+            } catch (DateTimeParseException e) {
+                assertThat(e.getParsedString(), is(text));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void buildsOnlyWhatWasParsed() {
+        parser.parseEpochDay("2015-06-18");
+        parser.toInstant();
+    }
+
+    private static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
@@ -0,0 +1,154 @@
+package date.and.time.api;
+
+import common.test.tool.dataset.DateAndTimes;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ZoneConverterTest {
+
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+    private static final ZoneId LOS_ANGELES = ZoneId.of("America/Los_Angeles");
+    private static final ZoneId[] ZONES = {
+        TOKYO, LOS_ANGELES, ZoneId.of("America/New_York"), ZoneId.of("Europe/London"),
+        ZoneId.of("Australia/Lord_Howe"), ZoneOffset.ofHours(-8), ZoneId.of("UTC")
+    };
+
+    @Test
+    public void sameInstantAsPacificTime() {
+        ZonedDateTime zdt = DateAndTimes.ZDT_20150618_23073050;
+        long[] millis = {zdt.toInstant().toEpochMilli()};
+
+        new ZoneConverter(LOS_ANGELES).toLocal(millis, TimeUnit.MILLISECONDS, millis);
+
+        LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(millis[0], 1000L), 0, ZoneOffset.UTC);
+        assertThat(local.withNano((int) Math.floorMod(millis[0], 1000L) * 1_000_000),
+            is(zdt.withZoneSameInstant(LOS_ANGELES).toLocalDateTime()));
+    }
+
+    @Test
+    public void offsetsAndLocalsMatchZoneRules() {
+        long[] seconds = randomSeconds(200_000, 1);
+        for (ZoneId zone : ZONES) {
+            ZoneConverter converter = new ZoneConverter(zone, 1950, 2050);
+            int[] offsets = new int[seconds.length];
+            long[] locals = new long[seconds.length];
+            converter.offsets(seconds, TimeUnit.SECONDS, offsets);
+            converter.toLocal(seconds, TimeUnit.SECONDS, locals);
+            for (int i = 0; i < seconds.length; i++) {
+                ZonedDateTime expected = Instant.ofEpochSecond(seconds[i]).atZone(zone);
+                assertThat(zone + " " + expected, offsets[i], is(expected.getOffset().getTotalSeconds()));
+                assertThat(zone + " " + expected, locals[i], is(expected.toLocalDateTime().toEpochSecond(ZoneOffset.UTC)));
+            }
+        }
+    }
+
+    @Test
+    public void localsResolveGapsAndOverlapsAsZonedDateTime() {
+        for (ZoneId zone : ZONES) {
+            ZoneConverter converter = new ZoneConverter(zone);
+            // every quarter hour around the transitions of 2015, and a spread of other local times
+            long start = LocalDateTime.of(2015, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+            long[] locals = new long[365 * 96];
+            for (int i = 0; i < locals.length; i++) {
+                locals[i] = start + i * 900L;
+            }
+            long[] epochs = new long[locals.length];
+            converter.toEpoch(locals, TimeUnit.SECONDS, epochs);
+            for (int i = 0; i < locals.length; i++) {
+                LocalDateTime local = LocalDateTime.ofEpochSecond(locals[i], 0, ZoneOffset.UTC);
+                assertThat(zone + " " + local, epochs[i], is(ZonedDateTime.ofLocal(local, zone, null).toEpochSecond()));
+            }
+        }
+    }
+
+    @Test
+    public void gapsAndOverlapsOutsideTheYearsResolveAsInside() {
+        ZoneConverter converter = new ZoneConverter(LOS_ANGELES);
+        // the gap and the overlap of 2150, past the default years, and of 2015, inside them
+        long[] locals = {
+            LocalDateTime.of(2150, 3, 8, 2, 30).toEpochSecond(ZoneOffset.UTC),
+            LocalDateTime.of(2150, 11, 1, 1, 30).toEpochSecond(ZoneOffset.UTC),
+            LocalDateTime.of(2015, 3, 8, 2, 30).toEpochSecond(ZoneOffset.UTC),
+            LocalDateTime.of(2015, 11, 1, 1, 30).toEpochSecond(ZoneOffset.UTC)
+        };
+        long[] epochs = new long[locals.length];
+        converter.toEpoch(locals, TimeUnit.SECONDS, epochs);
+
+        assertThat(epochs[0], is(5686021800L));
+        for (int i = 0; i < locals.length; i++) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(locals[i], 0, ZoneOffset.UTC);
+            long expected = local.atZone(LOS_ANGELES).toEpochSecond();
+            assertThat(local.toString(), epochs[i], is(expected));
+            assertThat(local.toString(), locals[i] - converter.offsetAtLocal(locals[i]), is(expected));
+            // the offset before the gap and the earlier one in the overlap, on both sides of the years
+            assertThat(local.toString(), converter.offsetAtLocal(locals[i]), is(i % 2 == 0 ? -28800 : -25200));
+        }
+    }
+
+    @Test
+    public void tokyoColumnToPacificColumn() {
+        long[] millis = randomSeconds(100_000, 1000);
+        long[] tokyoLocal = new long[millis.length];
+        ZoneConverter tokyo = new ZoneConverter(TOKYO, 1950, 2050, new ForkJoinPool(3), 1_000);
+        ZoneConverter losAngeles = new ZoneConverter(LOS_ANGELES, 1950, 2050, new ForkJoinPool(3), 1_000);
+        tokyo.toLocal(millis, TimeUnit.MILLISECONDS, tokyoLocal);
+
+        long[] pacific = tokyoLocal.clone();
+        tokyo.toEpoch(pacific, TimeUnit.MILLISECONDS, pacific);
+        losAngeles.toLocal(pacific, TimeUnit.MILLISECONDS, pacific);
+
+        for (int i = 0; i < millis.length; i++) {
+            ZonedDateTime expected = Instant.ofEpochMilli(millis[i]).atZone(TOKYO).withZoneSameInstant(LOS_ANGELES);
+            long local = expected.toLocalDateTime().toEpochSecond(ZoneOffset.UTC) * 1000 + expected.getNano() / 1_000_000;
+            assertThat(expected.toString(), pacific[i], is(local));
+        }
+    }
+
+    @Test
+    public void nanosOutsideTheYears() {
+        ZoneConverter converter = new ZoneConverter(LOS_ANGELES, 2000, 2001);
+        long[] nanos = {-1L, 0L, 1_500_000_000_000_000_000L, Long.MAX_VALUE / 2};
+        long[] locals = new long[nanos.length];
+        converter.toLocal(nanos, TimeUnit.NANOSECONDS, locals);
+        for (int i = 0; i < nanos.length; i++) {
+            int offset = Instant.ofEpochSecond(0, nanos[i]).atZone(LOS_ANGELES).getOffset().getTotalSeconds();
+            assertThat(locals[i], is(nanos[i] + offset * 1_000_000_000L));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnitsCoarserThanSeconds() {
+        new ZoneConverter(TOKYO).toLocal(new long[1], TimeUnit.MINUTES, new long[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortOutput() {
+        new ZoneConverter(TOKYO).offsets(new long[2], TimeUnit.SECONDS, new int[1]);
+    }
+
+    /** Mostly sorted runs, as a column of event times would be, mixed with random jumps. */
+    private static long[] randomSeconds(int count, long unitsPerSecond) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] values = new long[count];
+        long current = 0;
+        for (int i = 0; i < count; i++) {
+            current = random.nextInt(50) == 0
+                ? random.nextLong(-3_000_000_000L, 4_000_000_000L)
+                : current + random.nextInt(20_000);
+            values[i] = current * unitsPerSecond + (unitsPerSecond > 1 ? random.nextLong(unitsPerSecond) : 0);
+        }
+        return values;
+    }
+}
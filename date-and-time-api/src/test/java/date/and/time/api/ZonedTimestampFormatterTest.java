@@ -0,0 +1,91 @@
+package date.and.time.api;
+
+import common.test.tool.dataset.DateAndTimes;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ZonedTimestampFormatterTest {
+
+    private static final String[] PATTERNS = {
+        "yyyy_MM_dd_HH_mm_ss_zzz", "yyyy-MM-dd'T'HH:mm:ss.SSSXXX", "EEE, d MMM yy h:mm a zzzz", "EEEE MMMM d yyyy",
+        "y/M/d H:m:s.S X VV", "HH:mm:ss,SSSSSSSSS XX z", "'at' hh 'o''clock' a", "''yyyy''"
+    };
+    private static final ZoneId[] ZONES = {
+        ZoneId.of("Asia/Tokyo"), ZoneId.of("America/Los_Angeles"), ZoneId.of("Europe/London"),
+        ZoneId.of("Australia/Lord_Howe"), ZoneId.of("UTC"), ZoneOffset.ofHoursMinutes(5, 30), ZoneOffset.UTC
+    };
+    private static final Locale[] LOCALES = {Locale.US, Locale.JAPAN, Locale.GERMANY, Locale.FRANCE};
+
+    @Test
+    public void exerciseFourPattern() {
+        ZonedTimestampFormatter formatter = ZonedTimestampFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss_zzz", Locale.US);
+
+        assertThat(formatter.format(DateAndTimes.ZDT_20150618_23073050), is("2015_06_18_23_07_30_JST"));
+    }
+
+    @Test
+    public void matchesDateTimeFormatter() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (String pattern : PATTERNS) {
+            for (Locale locale : LOCALES) {
+                DateTimeFormatter expected = DateTimeFormatter.ofPattern(pattern, locale);
+                ZonedTimestampFormatter formatter = ZonedTimestampFormatter.ofPattern(pattern, locale);
+                StringBuilder out = new StringBuilder();
+                for (int i = 0; i < 2_000; i++) {
+                    long epochSecond = random.nextLong(-2_000_000_000L, 5_000_000_000L);
+                    int nano = random.nextInt(1_000_000_000);
+                    ZonedDateTime dateTime = Instant.ofEpochSecond(epochSecond, nano).atZone(ZONES[i % ZONES.length]);
+                    String text = expected.format(dateTime);
+
+                    assertThat(pattern + " " + dateTime, formatter.format(dateTime), is(text));
+                    out.setLength(0);
+                    formatter.formatTo(epochSecond, nano, dateTime.getZone(), out);
+                    assertThat(pattern + " " + dateTime, out.toString(), is(text));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void writesToAppendableAndBytes() {
+        ZonedTimestampFormatter formatter = ZonedTimestampFormatter.ofPattern("yyyy-MM-dd zzzz", Locale.JAPAN);
+        ZonedDateTime dateTime = DateAndTimes.ZDT_20150618_23073050;
+        String expected = DateTimeFormatter.ofPattern("yyyy-MM-dd zzzz", Locale.JAPAN).format(dateTime);
+
+        StringWriter writer = new StringWriter();
+        formatter.formatTo(dateTime, writer);
+        assertThat(writer.toString(), is(expected));
+
+        ByteBuffer buffer = ByteBuffer.allocate(64).put((byte) '>');
+        formatter.formatTo(dateTime.toEpochSecond(), dateTime.getNano(), dateTime.getZone(), buffer);
+        assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8), is(">" + expected));
+
+        ByteBuffer small = ByteBuffer.allocate(12);
+        try {
+            formatter.formatTo(dateTime, small);
+            fail("Expected overflow");
+        } catch (BufferOverflowException e) {
+            assertThat(small.position(), is(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedLetters() {
+        ZonedTimestampFormatter.ofPattern("yyyy-MM-dd G");
+    }
+}
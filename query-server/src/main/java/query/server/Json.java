@@ -0,0 +1,74 @@
+package query.server;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** The little JSON the server writes: string arrays and objects of string arrays, with sorted keys. */
+final class Json {
+
+    private Json() {
+    }
+
+    static String array(Collection<String> values) {
+        StringBuilder json = new StringBuilder();
+        appendArray(json, values);
+        return json.toString();
+    }
+
+    static String object(Map<String, ? extends Collection<String>> map) {
+        StringBuilder json = new StringBuilder().append('{');
+        boolean first = true;
+        for (Map.Entry<String, ? extends Collection<String>> entry : new TreeMap<>(map).entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, entry.getKey());
+            json.append(':');
+            appendArray(json, entry.getValue().stream().sorted().toList());
+        }
+        return json.append('}').toString();
+    }
+
+    static String error(String message) {
+        StringBuilder json = new StringBuilder().append("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    private static void appendArray(StringBuilder json, Collection<String> values) {
+        json.append('[');
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, value);
+        }
+        json.append(']');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
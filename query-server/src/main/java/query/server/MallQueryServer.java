@@ -0,0 +1,205 @@
+package query.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import common.test.tool.dataset.MallSnapshot;
+import common.test.tool.entity.Customer;
+import common.test.tool.entity.Item;
+import common.test.tool.entity.OnlineShoppingMall;
+import common.test.tool.query.AffordabilityEngine;
+import common.test.tool.query.Condition;
+import common.test.tool.query.MallColumn;
+import common.test.tool.query.MallQuery;
+import common.test.tool.util.MultimapCollectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * In-process HTTP endpoint over the mall queries, built on the JDK's {@code com.sun.net.httpserver}.
+ * <p>
+ * Requests are handed to the executor given at start, normally {@link #virtualThreads()}: one virtual thread per
+ * request, so thousands of concurrent requests cost no more than that many small heap objects.
+ * <ul>
+ * <li>{@code GET /customers/rich?budget=10000}: names of customers with a budget above {@code budget}</li>
+ * <li>{@code GET /customers/affordable}: names of customers who can afford everything they want</li>
+ * <li>{@code GET /items/wanted-by}: item name to the names of the customers wanting it</li>
+ * </ul>
+ * Responses are JSON. Paths must match exactly, so {@code /customers/rich/x} is not found, and query parameters are
+ * URL-decoded as UTF-8. The mall must not change while the server runs.
+ */
+public final class MallQueryServer implements AutoCloseable {
+
+    public static final int DEFAULT_RICH_BUDGET = 10000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final OnlineShoppingMall mall;
+    private final AffordabilityEngine affordability;
+
+    private MallQueryServer(OnlineShoppingMall mall, HttpServer server, ExecutorService executor) {
+        this.mall = mall;
+        this.server = server;
+        this.executor = executor;
+        this.affordability = new AffordabilityEngine(mall.getShopList());
+        server.createContext("/customers/rich", get(this::richCustomers));
+        server.createContext("/customers/affordable", get(exchange -> Json.array(affordableCustomers())));
+        server.createContext("/items/wanted-by", get(exchange -> Json.object(wantedBy())));
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Binds to {@code address} (port 0 picks a free port) and starts serving. {@code backlog} bounds the
+     * connections waiting to be accepted; the operating system may cap it further.
+     */
+    public static MallQueryServer start(OnlineShoppingMall mall, InetSocketAddress address, int backlog,
+                                        ExecutorService executor) throws IOException {
+        MallQueryServer server = new MallQueryServer(mall, HttpServer.create(address, backlog), executor);
+        server.server.start();
+        return server;
+    }
+
+    /** One new virtual thread per request. */
+    public static ExecutorService virtualThreads() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /** A fixed pool of platform threads, the pre-Java 21 way of serving requests. */
+    public static ExecutorService platformThreads(int threads) {
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://localhost:" + getPort() + path);
+    }
+
+    /** Stops accepting requests, waits up to a second for running exchanges and shuts the executor down. */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    List<String> richCustomers(int budget) {
+        return MallQuery.customers()
+            .where(Condition.greaterThan(MallColumn.BUDGET, budget))
+            .select(MallColumn.CUSTOMER_NAME)
+            .run(mall);
+    }
+
+    List<String> affordableCustomers() {
+        return affordability.affordable(mall.getCustomerList()).stream()
+            .map(Customer::getName)
+            .collect(Collectors.toList());
+    }
+
+    Map<String, Set<String>> wantedBy() {
+        return mall.getCustomerList().stream()
+            .collect(MultimapCollectors.invertingToSet(
+                customer -> customer.getWantToBuy().stream().map(Item::getName).collect(Collectors.toList()),
+                Customer::getName));
+    }
+
+    private String richCustomers(HttpExchange exchange) {
+        String budget = queryParameter(exchange.getRequestURI(), "budget");
+        try {
+            return Json.array(richCustomers(budget == null ? DEFAULT_RICH_BUDGET : Integer.parseInt(budget)));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("budget must be an integer: " + budget);
+        }
+    }
+
+    /** The decoded value of the first {@code name} parameter, or {@code null}. */
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && decode(pair.substring(0, equals)).equals(name)) {
+                return decode(pair.substring(equals + 1));
+            }
+        }
+        return null;
+    }
+
+    /** {@link URI} has already rejected malformed escapes, so decoding cannot fail. */
+    private static String decode(String encoded) {
+        return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+    }
+
+    private static HttpHandler get(Endpoint endpoint) {
+        return exchange -> {
+            try (exchange) {
+                // contexts match by prefix, so /customers/rich would also serve /customers/richXYZ
+                if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                    send(exchange, 404, Json.error("not found"));
+                    return;
+                }
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    send(exchange, 405, Json.error("method not allowed"));
+                    return;
+                }
+                String body;
+                try {
+                    body = endpoint.respond(exchange);
+                } catch (BadRequestException e) {
+                    send(exchange, 400, Json.error(e.getMessage()));
+                    return;
+                } catch (RuntimeException e) {
+                    send(exchange, 500, Json.error(String.valueOf(e)));
+                    return;
+                }
+                send(exchange, 200, body);
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Serves the test data set, or the XML file given as the second argument, on the port given first. */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        File data = new File(args.length > 1 ? args[1] : "common-test-tool/src/test/resources/data.xml");
+        OnlineShoppingMall mall = MallSnapshot.of(data).get();
+        MallQueryServer server = start(mall, new InetSocketAddress(port), 0, virtualThreads());
+        System.out.println("Serving " + data + " at " + server.uri("/"));
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        String respond(HttpExchange exchange);
+    }
+
+    private static final class BadRequestException extends RuntimeException {
+
+        private BadRequestException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package query.server;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.OnlineShoppingMall;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local load generator: {@value #CONCURRENCY} requests in flight at once (override with
+ * {@code -Dloadtest.concurrency=n}) against the server running on virtual threads and on a pool of
+ * {@value #PLATFORM_THREADS} platform threads. Prints throughput and latency percentiles; asserts only that every
+ * request was answered correctly, since the numbers depend on the machine.
+ * <p>
+ * Client and server share the process, so every connection holds two file descriptors; the concurrency is lowered
+ * to what the descriptor limit allows.
+ * <p>
+ * Excluded from the default build; run it with {@code mvn test -Ploadtest} on JDK 21.
+ */
+public class MallQueryServerLoadTest {
+
+    private static final int CONCURRENCY = 10_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int SPARE_DESCRIPTORS = 1_000;
+
+    private static OnlineShoppingMall mall;
+    private static int concurrency;
+    private static HttpClient client;
+
+    @BeforeClass
+    public static void setUp() {
+        concurrency = concurrency();
+        mall = new MallGenerator(42).catalogSize(500).shops(20, 50).customers(2_000).generate();
+        client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void virtualThreadsAgainstPlatformPool() throws Exception {
+        Report platform = load("platform pool", MallQueryServer.platformThreads(PLATFORM_THREADS));
+        Report virtual = load("virtual threads", MallQueryServer.virtualThreads());
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertThat(virtual.failures, is(0));
+        assertThat(platform.failures, is(0));
+    }
+
+    private static int concurrency() {
+        int requested = Integer.getInteger("loadtest.concurrency", CONCURRENCY);
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os) {
+            long available = os.getMaxFileDescriptorCount() - os.getOpenFileDescriptorCount() - SPARE_DESCRIPTORS;
+            if (available / 2 < requested) {
+                int lowered = (int) Math.max(1, available / 2);
+                System.out.println("Descriptor limit " + os.getMaxFileDescriptorCount() + " allows " + lowered
+                    + " concurrent requests instead of " + requested);
+                return lowered;
+            }
+        }
+        return requested;
+    }
+
+    private static MallQueryServer start(ExecutorService executor) throws IOException {
+        return MallQueryServer.start(mall, new InetSocketAddress("localhost", 0), concurrency, executor);
+    }
+
+    private static HttpResponse<String> get(URI uri) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Report load(String name, ExecutorService serverExecutor) throws Exception {
+        try (MallQueryServer server = start(serverExecutor);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI uri = server.uri("/customers/rich");
+            String expected = Json.array(server.richCustomers(MallQueryServer.DEFAULT_RICH_BUDGET));
+            for (int i = 0; i < 200; i++) {
+                get(uri);
+            }
+
+            long start = System.nanoTime();
+            List<Future<Long>> requests = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                requests.add(clients.submit(() -> {
+                    long sent = System.nanoTime();
+                    HttpResponse<String> response = get(uri);
+                    long latency = System.nanoTime() - sent;
+                    return response.statusCode() == 200 && response.body().equals(expected) ? latency : -1L;
+                }));
+            }
+            long[] latencies = new long[concurrency];
+            int failures = 0;
+            for (int i = 0; i < concurrency; i++) {
+                try {
+                    latencies[i] = requests.get(i).get();
+                } catch (ExecutionException e) {
+                    latencies[i] = -1;
+                }
+                if (latencies[i] < 0) {
+                    failures++;
+                }
+            }
+            return new Report(name, System.nanoTime() - start, latencies, failures);
+        }
+    }
+
+    private static final class Report {
+
+        private final String name;
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private final int failures;
+
+        private Report(String name, long elapsedNanos, long[] latencies, int failures) {
+            this.name = name;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies.clone();
+            this.failures = failures;
+            Arrays.sort(this.latencies);
+        }
+
+        private double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-15s %,d requests, %,.0f req/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d failed",
+                name, latencies.length, latencies.length / (elapsedNanos / 1e9), percentileMillis(50),
+                percentileMillis(99), percentileMillis(100), failures);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package query.server;
+
+import common.test.tool.dataset.MallGenerator;
+import common.test.tool.entity.OnlineShoppingMall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MallQueryServerTest {
+
+    private MallQueryServer server;
+    private HttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        OnlineShoppingMall mall = new MallGenerator(42).catalogSize(100).shops(5, 20).customers(200).generate();
+        server = MallQueryServer.start(mall, new InetSocketAddress("localhost", 0), 0, MallQueryServer.virtualThreads());
+        client = HttpClient.newHttpClient();
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void endpointsAnswerJson() throws Exception {
+        HttpResponse<String> rich = get("/customers/rich?budget=9000");
+        assertThat(rich.statusCode(), is(200));
+        assertThat(rich.headers().firstValue("Content-Type").orElse(""), startsWith("application/json"));
+        assertThat(rich.body(), is(Json.array(server.richCustomers(9000))));
+        assertThat(get("/customers/rich").body(),
+            is(Json.array(server.richCustomers(MallQueryServer.DEFAULT_RICH_BUDGET))));
+        assertThat(get("/customers/affordable").body(), is(Json.array(server.affordableCustomers())));
+        assertThat(get("/items/wanted-by").body(), is(Json.object(server.wantedBy())));
+    }
+
+    @Test
+    public void queryParametersAreDecoded() throws Exception {
+        assertThat(get("/customers/rich?%62udget=%39000").body(), is(Json.array(server.richCustomers(9000))));
+        assertThat(get("/customers/rich?other=1&budget=%2B9000").body(), is(Json.array(server.richCustomers(9000))));
+        assertThat(get("/customers/rich?budget=9%20000").statusCode(), is(400));
+        assertThat(get("/customers/rich?budget=lots").statusCode(), is(400));
+    }
+
+    @Test
+    public void onlyExactPathsAreServed() throws Exception {
+        assertThat(get("/customers/richXYZ").statusCode(), is(404));
+        assertThat(get("/customers/rich/extra").statusCode(), is(404));
+        assertThat(get("/customers/affordable2").statusCode(), is(404));
+        assertThat(get("/nowhere").statusCode(), is(404));
+    }
+
+    @Test
+    public void onlyGetIsAllowed() throws Exception {
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(server.uri("/customers/rich"))
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(post.statusCode(), is(405));
+        assertThat(post.headers().firstValue("Allow").orElse(""), is("GET"));
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(server.uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}